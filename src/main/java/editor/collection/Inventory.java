@@ -2,19 +2,24 @@ package editor.collection;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import editor.collection.deck.CategorySpec;
 import editor.database.card.Card;
 import editor.filter.Filter;
 import editor.filter.leaf.BinaryFilter;
+import editor.util.Lazy;
 
 /**
  * This class represents an inventory of cards that can be added to decks.
@@ -23,6 +28,15 @@ import editor.filter.leaf.BinaryFilter;
  */
 public class Inventory implements CardList
 {
+    /**
+     * Maximum number of cards in the sample used to estimate how many cards pass a filter.
+     */
+    public static final int SAMPLE_SIZE = 256;
+    /**
+     * Number of recently-used filters whose results are remembered.
+     */
+    public static final int RECENT_FILTERS = 16;
+
     /**
      * This class represents a card's entry in the Inventory.  It can only tell a Card's
      * date "added," which is the date its expansion was released.
@@ -69,15 +83,50 @@ public class Inventory implements CardList
     /**
      * Filter for Cards in the Inventory pane.
      */
-    private Filter filter;
+    private volatile Filter filter;
     /**
      * Filtered view of the master list.
      */
-    private List<Card> filtrate;
+    private volatile List<Card> filtrate;
     /**
      * Map of Card multiverseids onto their cards.
      */
     private final Map<String, Card> ids;
+    /**
+     * Index of cards by multiverseid, built the first time a card is looked up by one.
+     */
+    private final Lazy<InventoryIdIndex> multiverseids;
+    /**
+     * Cards in the order they were given when this Inventory was created.  A card's
+     * position in this list is its ordinal, which indices use to refer to it.
+     */
+    private final List<Card> ordinals;
+    /**
+     * Ordinals of the cards in the master list, in the order they appear in it.
+     */
+    private volatile int[] order;
+    /**
+     * Index of the text attributes of the cards in this Inventory.
+     */
+    private final InventoryTextIndex textIndex;
+    /**
+     * Index of the categorical attributes of the cards in this Inventory.
+     */
+    private final InventoryAttributeIndex attributeIndex;
+    /**
+     * Index of the names of the cards in the master list, or <code>null</code> if it
+     * hasn't been created since the list was last sorted.
+     */
+    private InventoryNameIndex nameIndex;
+    /**
+     * Ordinals of evenly-spaced cards used to estimate how many cards pass filters.
+     */
+    private final BitSet sample;
+    /**
+     * Copies of recently-used filters mapped onto the ordinals of the cards they
+     * selected, from least to most recently used.
+     */
+    private final Map<Filter, BitSet> recent;
 
     /**
      * Create an empty Inventory.  Be careful, because Inventories are immutable.
@@ -96,6 +145,23 @@ public class Inventory implements CardList
     {
         cards = new ArrayList<>(list);
         ids = cards.stream().collect(Collectors.toMap((c) -> c.scryfallid().get(0), Function.identity()));
+        multiverseids = new Lazy<>(() -> new InventoryIdIndex(ids.values()));
+        ordinals = List.copyOf(cards);
+        order = IntStream.range(0, cards.size()).toArray();
+        textIndex = new InventoryTextIndex(ordinals);
+        attributeIndex = new InventoryAttributeIndex(ordinals);
+        nameIndex = null;
+        sample = new BitSet(ordinals.size());
+        for (int i = 0; i < SAMPLE_SIZE && i < ordinals.size(); i++)
+            sample.set((int)((long)i*ordinals.size()/Math.min(SAMPLE_SIZE, ordinals.size())));
+        recent = new LinkedHashMap<>(RECENT_FILTERS, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Filter, BitSet> eldest)
+            {
+                return size() > RECENT_FILTERS;
+            }
+        };
         filter = new BinaryFilter(true);
         filtrate = cards;
     }
@@ -187,7 +253,7 @@ public class Inventory implements CardList
      */
     public boolean contains(int id)
     {
-        return ids.values().stream().map((c) -> c.multiverseid().get(0)).anyMatch((i) -> i == id);
+        return multiverseids.get().get(id) != null;
     }
 
     /**
@@ -226,7 +292,19 @@ public class Inventory implements CardList
      */
     public Card find(int id)
     {
-        return ids.values().stream().filter((c) -> c.multiverseid().get(0) == id).findAny().orElse(null);
+        return multiverseids.get().get(id);
+    }
+
+    /**
+     * Get the card with the given ordinal, which is its position in the list this
+     * Inventory was created with and doesn't change when the Inventory is sorted.
+     *
+     * @param ordinal ordinal of the card to get
+     * @return the card with the given ordinal.
+     */
+    public Card fromOrdinal(int ordinal)
+    {
+        return ordinals.get(ordinal);
     }
 
     /**
@@ -368,6 +446,56 @@ public class Inventory implements CardList
     public void sort(Comparator<? super CardList.Entry> c)
     {
         cards.sort((a, b) -> c.compare(new InventoryEntry(a), new InventoryEntry(b)));
+        var positions = new IdentityHashMap<Card, Integer>();
+        for (int i = 0; i < ordinals.size(); i++)
+            positions.put(ordinals.get(i), i);
+        order = cards.stream().mapToInt(positions::get).toArray();
+        synchronized (this)
+        {
+            nameIndex = null;
+        }
+    }
+
+    /**
+     * @return the index of the text attributes of the cards in this Inventory.
+     */
+    public InventoryTextIndex textIndex()
+    {
+        return textIndex;
+    }
+
+    /**
+     * Get a sample of the cards in this Inventory for estimating how many of them
+     * pass a filter.  It has up to {@value #SAMPLE_SIZE} cards spread evenly throughout
+     * the Inventory.
+     *
+     * @return the ordinals of the sampled cards.
+     */
+    public BitSet sample()
+    {
+        return (BitSet)sample.clone();
+    }
+
+    /**
+     * Get the index of the names of the cards in this Inventory, creating it if it
+     * hasn't been created since the Inventory was last sorted.  Cards found with it
+     * are in the same order as the Inventory.
+     *
+     * @return the index of the names of the cards in this Inventory.
+     */
+    public synchronized InventoryNameIndex nameIndex()
+    {
+        if (nameIndex == null)
+            nameIndex = new InventoryNameIndex(cards);
+        return nameIndex;
+    }
+
+    /**
+     * @return the index of the categorical attributes of the cards in this Inventory.
+     */
+    public InventoryAttributeIndex attributeIndex()
+    {
+        return attributeIndex;
     }
 
     /**
@@ -389,14 +517,85 @@ public class Inventory implements CardList
         return cards.size();
     }
 
+    /**
+     * Find the cards that pass a filter.  If the filter was used recently, the cards it
+     * selected then are reused.  Otherwise, if it {@link Filter#refines refines} a recent
+     * filter, only the cards that filter selected are searched, which is the case when
+     * the user is typing more of a search.
+     *
+     * @param f filter to select cards with
+     * @return the ordinals of the cards that pass the filter, which must not be modified.
+     */
+    private BitSet select(Filter f)
+    {
+        if (!f.stable())
+        {
+            BitSet all = new BitSet(ordinals.size());
+            all.set(0, ordinals.size());
+            return f.select(this, all);
+        }
+
+        synchronized (recent)
+        {
+            BitSet selected = recent.get(f);
+            if (selected == null)
+            {
+                BitSet candidates = null;
+                for (var e : recent.entrySet())
+                    if ((candidates == null || e.getValue().cardinality() < candidates.cardinality()) && f.refines(e.getKey()))
+                        candidates = e.getValue();
+                if (candidates == null)
+                {
+                    candidates = new BitSet(ordinals.size());
+                    candidates.set(0, ordinals.size());
+                }
+                selected = f.select(this, candidates);
+                recent.put(f.copy(), selected);
+            }
+            return selected;
+        }
+    }
+
+    /**
+     * Find the cards in this Inventory that pass a filter, without changing its filtered
+     * view.  This can be used from any thread, and if the thread is interrupted while
+     * cards are being tested, it stops with a {@link java.util.concurrent.CancellationException}.
+     *
+     * @param f filter to apply
+     * @return the list of cards that pass the filter, in the same order as this Inventory.
+     * @see #updateFilter(Filter, List)
+     */
+    public List<Card> filtered(Filter f)
+    {
+        BitSet selected = select(f);
+        int[] o = order;
+        var result = new ArrayList<Card>(selected.cardinality());
+        for (int i : o)
+            if (selected.get(i))
+                result.add(ordinals.get(i));
+        return result;
+    }
+
     /**
      * Update the filtered view of this Inventory.
      *
      * @param filter New filter
      */
     public void updateFilter(Filter f)
+    {
+        updateFilter(f, filtered(f));
+    }
+
+    /**
+     * Update the filtered view of this Inventory with cards that have already been
+     * filtered.
+     *
+     * @param f new filter
+     * @param cards cards that pass the filter, as returned by {@link #filtered(Filter)}
+     */
+    public void updateFilter(Filter f, List<Card> cards)
     {
         filter = f;
-        filtrate = cards.stream().filter(filter).collect(Collectors.toList());
+        filtrate = cards;
     }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+package editor.collection;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import editor.database.attributes.CardAttribute;
+import editor.database.card.Card;
+
+/**
+ * Index of the values of categorical attributes of the cards in an {@link Inventory},
+ * such as types, rarity, or expansion.  For each attribute, it maps each value any
+ * card has onto the ordinals of the cards that have it.  Attributes are only indexed
+ * the first time they are searched, and their values are assumed not to change after
+ * that.
+ *
+ * @author Alec Roelke
+ */
+public class InventoryAttributeIndex
+{
+    /** Cards to index.  Each card's ordinal is its position in the list. */
+    private final List<Card> cards;
+    /** Map of attribute onto value onto ordinals of the cards with that value. */
+    private final Map<CardAttribute, Map<Object, BitSet>> indices;
+
+    /**
+     * Create a new index over the given cards.  Each card's ordinal is its position
+     * in the list.
+     *
+     * @param c cards to index
+     */
+    public InventoryAttributeIndex(List<Card> c)
+    {
+        cards = c;
+        indices = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get the index of an attribute, creating it if it hasn't been yet.
+     *
+     * @param attribute attribute to get the index of
+     * @param values function for getting the values of the attribute from a card
+     * @return the map of each value of the attribute onto the cards that have it.
+     */
+    private Map<Object, BitSet> index(CardAttribute attribute, Function<Card, ? extends Collection<?>> values)
+    {
+        return indices.computeIfAbsent(attribute, (a) -> {
+            var index = new HashMap<Object, BitSet>();
+            for (int i = 0; i < cards.size(); i++)
+                for (Object value : values.apply(cards.get(i)))
+                    index.computeIfAbsent(value, (v) -> new BitSet(cards.size())).set(i);
+            return index;
+        });
+    }
+
+    /**
+     * Find the cards that have any of a set of values of an attribute.
+     *
+     * @param attribute attribute to search
+     * @param values function for getting the values of the attribute from a card
+     * @param options values to search for
+     * @return the ordinals of the cards that have at least one of the values.
+     */
+    public BitSet withAny(CardAttribute attribute, Function<Card, ? extends Collection<?>> values, Collection<?> options)
+    {
+        var index = index(attribute, values);
+        BitSet selected = new BitSet(cards.size());
+        for (Object option : options)
+        {
+            BitSet cards = index.get(option);
+            if (cards != null)
+                selected.or(cards);
+        }
+        return selected;
+    }
+
+    /**
+     * Find the cards that have all of a set of values of an attribute.
+     *
+     * @param attribute attribute to search
+     * @param values function for getting the values of the attribute from a card
+     * @param options values to search for
+     * @return the ordinals of the cards that have every one of the values.
+     */
+    public BitSet withAll(CardAttribute attribute, Function<Card, ? extends Collection<?>> values, Collection<?> options)
+    {
+        var index = index(attribute, values);
+        BitSet selected = new BitSet(cards.size());
+        selected.set(0, cards.size());
+        for (Object option : options)
+        {
+            if (selected.isEmpty())
+                break;
+            selected.and(index.getOrDefault(option, new BitSet()));
+        }
+        return selected;
+    }
+
+    /**
+     * Find the cards that have none of a set of values of an attribute.
+     *
+     * @param attribute attribute to search
+     * @param values function for getting the values of the attribute from a card
+     * @param options values to search for
+     * @return the ordinals of the cards that don't have any of the values.
+     */
+    public BitSet withNone(CardAttribute attribute, Function<Card, ? extends Collection<?>> values, Collection<?> options)
+    {
+        BitSet selected = withAny(attribute, values, options);
+        selected.flip(0, cards.size());
+        return selected;
+    }
+}
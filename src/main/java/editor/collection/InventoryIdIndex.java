@@ -0,0 +1,69 @@
+package editor.collection;
+
+import java.util.Collection;
+
+import editor.database.card.Card;
+
+/**
+ * Index of the cards in an {@link Inventory} by multiverseid.  Keys are stored in an
+ * open-addressed table of primitive integers so looking a card up doesn't box its ID
+ * or scan the inventory.  If more than one card has the same multiverseid, the first
+ * one given is the one that is found.
+ *
+ * @author Alec Roelke
+ */
+class InventoryIdIndex
+{
+    /** Multiverseids in the table. */
+    private final int[] keys;
+    /** Card with each multiverseid in the table, or null for empty slots. */
+    private final Card[] values;
+    /** Mask for converting hashes into table indices. */
+    private final int mask;
+
+    /**
+     * Create a new index over a collection of cards.
+     *
+     * @param cards cards to index
+     */
+    public InventoryIdIndex(Collection<Card> cards)
+    {
+        int capacity = Integer.highestOneBit(Math.max(cards.size(), 1)*2 - 1) << 1;
+        keys = new int[capacity];
+        values = new Card[capacity];
+        mask = capacity - 1;
+        for (Card card : cards)
+        {
+            int id = card.multiverseid().get(0);
+            int i = slot(id);
+            if (values[i] == null)
+            {
+                keys[i] = id;
+                values[i] = card;
+            }
+        }
+    }
+
+    /**
+     * Find the slot a multiverseid is in, or the empty slot where it would go.
+     *
+     * @param id multiverseid to look for
+     * @return the index of the slot.
+     */
+    private int slot(int id)
+    {
+        int i = (id*0x9E3779B9) & mask;
+        while (values[i] != null && keys[i] != id)
+            i = (i + 1) & mask;
+        return i;
+    }
+
+    /**
+     * @param id multiverseid to look for
+     * @return the card with the multiverseid, or null if there isn't one.
+     */
+    public Card get(int id)
+    {
+        return values[slot(id)];
+    }
+}
@@ -0,0 +1,224 @@
+package editor.collection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import editor.database.card.Card;
+
+/**
+ * Index of the names of the cards in an {@link Inventory}, used for finding cards
+ * by name when importing card lists.  Cards found by name are always listed in the
+ * same order as they were when the index was created.
+ *
+ * @author Alec Roelke
+ */
+public class InventoryNameIndex
+{
+    /**
+     * Prefix tree over lower-case card names, for finding all of the names that
+     * appear in a string.  Nodes are stored in parallel arrays, and each node's
+     * children are stored as a linked list of siblings.
+     *
+     * @author Alec Roelke
+     */
+    private static class NameTrie
+    {
+        /** Character leading to each node from its parent. */
+        private char[] label;
+        /** Index of each node's first child, or -1 if it has none. */
+        private int[] child;
+        /** Index of each node's next sibling, or -1 if it has none. */
+        private int[] sibling;
+        /** Index of the name ending at each node, or -1 if none does. */
+        private int[] name;
+        /** Number of nodes in the trie. */
+        private int size;
+
+        /**
+         * Create a new trie with only a root node.
+         */
+        public NameTrie()
+        {
+            label = new char[1024];
+            child = new int[1024];
+            sibling = new int[1024];
+            name = new int[1024];
+            size = 0;
+            node('\0');
+        }
+
+        /**
+         * Create a new node without a parent.
+         *
+         * @param c character leading to the node
+         * @return the index of the new node.
+         */
+        private int node(char c)
+        {
+            if (size == label.length)
+            {
+                label = Arrays.copyOf(label, size*2);
+                child = Arrays.copyOf(child, size*2);
+                sibling = Arrays.copyOf(sibling, size*2);
+                name = Arrays.copyOf(name, size*2);
+            }
+            label[size] = c;
+            child[size] = -1;
+            sibling[size] = -1;
+            name[size] = -1;
+            return size++;
+        }
+
+        /**
+         * Find the child of a node along a character.
+         *
+         * @param node node to search
+         * @param c character to search for
+         * @return the index of the child, or -1 if there isn't one.
+         */
+        private int next(int node, char c)
+        {
+            int n = child[node];
+            while (n >= 0 && label[n] != c)
+                n = sibling[n];
+            return n;
+        }
+
+        /**
+         * Add a name to the trie.
+         *
+         * @param s name to add
+         * @param index index of the name
+         */
+        public void add(String s, int index)
+        {
+            int node = 0;
+            for (int i = 0; i < s.length(); i++)
+            {
+                int n = next(node, s.charAt(i));
+                if (n < 0)
+                {
+                    n = node(s.charAt(i));
+                    sibling[n] = child[node];
+                    child[node] = n;
+                }
+                node = n;
+            }
+            name[node] = index;
+        }
+
+        /**
+         * Find all of the names that appear anywhere in a string.
+         *
+         * @param s string to search
+         * @return the indices of the names that appear in the string.
+         */
+        public BitSet find(String s)
+        {
+            BitSet found = new BitSet();
+            for (int start = 0; start < s.length(); start++)
+            {
+                int node = 0;
+                for (int i = start; i < s.length() && (node = next(node, s.charAt(i))) >= 0; i++)
+                    if (name[node] >= 0)
+                        found.set(name[node]);
+            }
+            return found;
+        }
+    }
+
+    /**
+     * Convert a string so that two strings are {@link String#equalsIgnoreCase(String) equal
+     * ignoring case} exactly when their conversions are equal.
+     *
+     * @param s string to convert
+     * @return the converted string.
+     */
+    private static String fold(String s)
+    {
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        return new String(chars);
+    }
+
+    /** Map of case-folded unified names onto the cards with them. */
+    private final Map<String, List<Card>> unified;
+    /** Trie over the lower-case unified and face names of the cards. */
+    private final NameTrie trie;
+    /** Positions of the cards with each name in the trie, indexed by the name's index. */
+    private final List<List<Integer>> named;
+    /** Cards that were indexed, in the order they were given. */
+    private final List<Card> cards;
+
+    /**
+     * Create a new index over a list of cards.
+     *
+     * @param c cards to index
+     */
+    public InventoryNameIndex(List<Card> c)
+    {
+        unified = new HashMap<>();
+        trie = new NameTrie();
+        named = new ArrayList<>();
+        cards = List.copyOf(c);
+
+        var indices = new HashMap<String, Integer>();
+        for (int i = 0; i < cards.size(); i++)
+        {
+            Card card = cards.get(i);
+            unified.computeIfAbsent(fold(card.unifiedName()), (k) -> new ArrayList<>()).add(card);
+
+            var names = new LinkedHashSet<String>();
+            names.add(card.unifiedName().toLowerCase());
+            for (String n : card.name())
+                names.add(n.toLowerCase());
+            for (String n : names)
+            {
+                named.get(indices.computeIfAbsent(n, (k) -> {
+                    named.add(new ArrayList<>());
+                    trie.add(k, named.size() - 1);
+                    return named.size() - 1;
+                })).add(i);
+            }
+        }
+    }
+
+    /**
+     * Find the cards whose unified names are the same as a name, ignoring case.
+     *
+     * @param name name to search for
+     * @return the list of cards with the name, which can't be modified.
+     * @see Card#unifiedName()
+     */
+    public List<Card> named(String name)
+    {
+        return Collections.unmodifiableList(unified.getOrDefault(fold(name), Collections.emptyList()));
+    }
+
+    /**
+     * Find the cards whose unified name or one of whose face names, converted to lower
+     * case, appears in a string.
+     *
+     * @param s string to search, which should already be in lower case
+     * @return the list of cards with names in the string.
+     */
+    public List<Card> containedIn(String s)
+    {
+        BitSet found = new BitSet(cards.size());
+        BitSet names = trie.find(s);
+        for (int i = names.nextSetBit(0); i >= 0; i = names.nextSetBit(i + 1))
+            for (int position : named.get(i))
+                found.set(position);
+        var matches = new ArrayList<Card>(found.cardinality());
+        for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1))
+            matches.add(cards.get(i));
+        return matches;
+    }
+}
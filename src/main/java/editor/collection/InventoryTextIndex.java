@@ -0,0 +1,212 @@
+package editor.collection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import editor.database.attributes.CardAttribute;
+import editor.database.card.Card;
+
+/**
+ * Inverted index over the text attributes of the cards in an {@link Inventory}.  For
+ * each indexed attribute, it maps every token (maximal run of regex word characters,
+ * converted to lower case) that appears in any card's value of that attribute to the
+ * ordinals of the cards that contain it.
+ *
+ * @author Alec Roelke
+ */
+public class InventoryTextIndex
+{
+    /**
+     * Text attributes that are indexed and the functions used to get their values,
+     * which are the same ones used by their {@link editor.filter.leaf.TextFilter}s.
+     */
+    private static final Map<CardAttribute, Function<Card, List<String>>> ATTRIBUTES = Map.of(
+        CardAttribute.NAME, Card::normalizedName,
+        CardAttribute.RULES_TEXT, Card::normalizedOracle,
+        CardAttribute.FLAVOR_TEXT, Card::normalizedFlavor
+    );
+
+    /**
+     * Growable list of card ordinals containing a token.
+     *
+     * @author Alec Roelke
+     */
+    private static class PostingList
+    {
+        /** Card ordinals, in increasing order. */
+        private int[] ordinals = new int[4];
+        /** Number of ordinals in the list. */
+        private int size = 0;
+
+        /**
+         * Add a card ordinal to the list if it isn't already the last one.
+         *
+         * @param ordinal ordinal to add
+         */
+        public void add(int ordinal)
+        {
+            if (size > 0 && ordinals[size - 1] == ordinal)
+                return;
+            if (size == ordinals.length)
+                ordinals = Arrays.copyOf(ordinals, size*2);
+            ordinals[size++] = ordinal;
+        }
+
+        /**
+         * @return the ordinals in the list, with no extra space.
+         */
+        public int[] toArray()
+        {
+            return Arrays.copyOf(ordinals, size);
+        }
+    }
+
+    /**
+     * @param c character to check
+     * @return <code>true</code> if the character is a regex word character (\w), and
+     * <code>false</code> otherwise.
+     */
+    public static boolean isWordChar(char c)
+    {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    /**
+     * Split a string into tokens, which are maximal runs of regex word characters
+     * converted to lower case.
+     *
+     * @param s string to split
+     * @return the list of tokens in the string, in order.
+     */
+    public static List<String> tokens(String s)
+    {
+        var tokens = new ArrayList<String>();
+        int start = -1;
+        for (int i = 0; i <= s.length(); i++)
+        {
+            if (i < s.length() && isWordChar(s.charAt(i)))
+            {
+                if (start < 0)
+                    start = i;
+            }
+            else if (start >= 0)
+            {
+                tokens.add(lower(s.substring(start, i)));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Convert the ASCII letters of a string to lower case, leaving the rest alone, which
+     * is how regex case-insensitive matching treats them.
+     *
+     * @param s string to convert
+     * @return the converted string.
+     */
+    public static String lower(String s)
+    {
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++)
+            if (chars[i] >= 'A' && chars[i] <= 'Z')
+                chars[i] += 'a' - 'A';
+        return new String(chars);
+    }
+
+    /** Map of attribute onto token onto ordinals of the cards containing the token. */
+    private final Map<CardAttribute, Map<String, int[]>> postings;
+    /** Ordinals of cards that have exactly one value for each attribute. */
+    private final Map<CardAttribute, BitSet> singleValued;
+
+    /**
+     * Create a new index over the given cards.  Each card's ordinal is its position
+     * in the list.
+     *
+     * @param cards cards to index
+     */
+    public InventoryTextIndex(List<Card> cards)
+    {
+        postings = new EnumMap<>(CardAttribute.class);
+        singleValued = new EnumMap<>(CardAttribute.class);
+        for (var e : ATTRIBUTES.entrySet())
+        {
+            var lists = new HashMap<String, PostingList>();
+            BitSet single = new BitSet(cards.size());
+            for (int i = 0; i < cards.size(); i++)
+            {
+                Collection<String> values = e.getValue().apply(cards.get(i));
+                if (values.size() == 1)
+                    single.set(i);
+                for (String value : values)
+                    for (String token : tokens(value))
+                        lists.computeIfAbsent(token, (t) -> new PostingList()).add(i);
+            }
+            var attributePostings = new HashMap<String, int[]>();
+            for (var list : lists.entrySet())
+                attributePostings.put(list.getKey(), list.getValue().toArray());
+            postings.put(e.getKey(), Collections.unmodifiableMap(attributePostings));
+            singleValued.put(e.getKey(), single);
+        }
+    }
+
+    /**
+     * @param attribute attribute to check
+     * @return <code>true</code> if the attribute is indexed, and <code>false</code> otherwise.
+     */
+    public boolean indexes(CardAttribute attribute)
+    {
+        return postings.containsKey(attribute);
+    }
+
+    /**
+     * Find the cards whose value for an attribute contains a token.
+     *
+     * @param attribute attribute to search
+     * @param token token to search for, which must already be in lower case
+     * @return the ordinals of the cards containing the token.
+     */
+    public BitSet withToken(CardAttribute attribute, String token)
+    {
+        BitSet cards = new BitSet();
+        for (int i : postings.get(attribute).getOrDefault(token, new int[0]))
+            cards.set(i);
+        return cards;
+    }
+
+    /**
+     * Find the cards whose value for an attribute contains a token that contains
+     * a string.
+     *
+     * @param attribute attribute to search
+     * @param fragment string to search for in tokens, which must already be in lower case
+     * @return the ordinals of the cards containing a token containing the string.
+     */
+    public BitSet withTokenContaining(CardAttribute attribute, String fragment)
+    {
+        BitSet cards = new BitSet();
+        for (var e : postings.get(attribute).entrySet())
+            if (e.getKey().contains(fragment))
+                for (int i : e.getValue())
+                    cards.set(i);
+        return cards;
+    }
+
+    /**
+     * @param attribute attribute to check
+     * @return the ordinals of the cards that have exactly one value for the attribute
+     * (usually because they only have one face).
+     */
+    public BitSet singleValued(CardAttribute attribute)
+    {
+        return (BitSet)singleValued.get(attribute).clone();
+    }
+}
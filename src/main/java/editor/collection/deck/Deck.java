@@ -401,6 +401,26 @@ public class Deck implements CardList
         }
     }
 
+    /**
+     * Listener for cards being added to a Deck when it didn't contain them or being
+     * removed from it entirely.  Changes to the number of copies of a card that is
+     * already in the deck aren't reported.
+     *
+     * @author Alec Roelke
+     */
+    @FunctionalInterface
+    public interface MembershipListener
+    {
+        /**
+         * Called when a card is added to or removed from the deck.
+         *
+         * @param card card that was added or removed
+         * @param contained <code>true</code> if the card was added, and <code>false</code>
+         * if it was removed
+         */
+        void membershipChanged(Card card, boolean contained);
+    }
+
     /**
      * Formatter for dates, usually for formatting the add date of a card.
      */
@@ -409,6 +429,14 @@ public class Deck implements CardList
      * List of cards in this Deck.
      */
     private List<DeckEntry> masterList;
+    /**
+     * Map of cards in this Deck onto their entries in {@link #masterList}.
+     */
+    private Map<Card, DeckEntry> entries;
+    /**
+     * Map of cards in this Deck onto their positions in {@link #masterList}.
+     */
+    private Map<Card, Integer> positions;
     /**
      * Categories in this Deck.
      */
@@ -417,6 +445,10 @@ public class Deck implements CardList
      * Total number of cards in this Deck, accounting for multiples.
      */
     private int total;
+    /**
+     * Listeners notified when cards are added to or removed from this Deck.
+     */
+    private List<MembershipListener> listeners;
 
     /**
      * Create a new, empty Deck with no categories.
@@ -424,8 +456,11 @@ public class Deck implements CardList
     public Deck()
     {
         masterList = new ArrayList<>();
+        entries = new HashMap<>();
+        positions = new HashMap<>();
         categories = new LinkedHashMap<>();
         total = 0;
+        listeners = new ArrayList<>();
     }
 
     /**
@@ -471,9 +506,12 @@ public class Deck implements CardList
             return false;
 
         DeckEntry entry = (DeckEntry)getEntry(card);
-        if (entry.count == 0)
+        boolean added = entry.count == 0;
+        if (added)
         {
             masterList.add(entry = new DeckEntry(card, 0, date));
+            entries.put(card, entry);
+            positions.put(card, masterList.size() - 1);
             for (Category category : categories.values())
             {
                 if (category.spec.includes(card))
@@ -485,6 +523,9 @@ public class Deck implements CardList
         }
         entry.add(amount);
         total += amount;
+        if (added)
+            for (MembershipListener listener : listeners)
+                listener.membershipChanged(card, true);
 
         return true;
     }
@@ -553,6 +594,17 @@ public class Deck implements CardList
             throw new IllegalArgumentException("Could not add new category " + spec.getName() + " at rank " + rank);
     }
 
+    /**
+     * Add a listener to be notified when cards are added to this Deck or removed from
+     * it entirely.
+     *
+     * @param listener listener to add
+     */
+    public void addMembershipListener(MembershipListener listener)
+    {
+        listeners.add(listener);
+    }
+
     /**
      * Get all the categories.
      *
@@ -571,15 +623,24 @@ public class Deck implements CardList
     @Override
     public void clear()
     {
+        var removed = new ArrayList<Card>(listeners.isEmpty() ? 0 : masterList.size());
+        if (!listeners.isEmpty())
+            for (DeckEntry e : masterList)
+                removed.add(e.card);
         masterList.clear();
+        entries.clear();
+        positions.clear();
         categories.clear();
         total = 0;
+        for (Card card : removed)
+            for (MembershipListener listener : listeners)
+                listener.membershipChanged(card, false);
     }
 
     @Override
     public boolean contains(Card card)
     {
-        return getEntry(card).count() > 0;
+        return entries.containsKey(card);
     }
 
     @Override
@@ -693,10 +754,8 @@ public class Deck implements CardList
     @Override
     public Entry getEntry(Card card)
     {
-        for (DeckEntry e : masterList)
-            if (e.card.equals(card))
-                return e;
-        return new DeckEntry(card, 0, null);
+        DeckEntry e = entries.get(card);
+        return e != null ? e : new DeckEntry(card, 0, null);
     }
 
     @Override
@@ -714,7 +773,7 @@ public class Deck implements CardList
     @Override
     public int indexOf(Card card)
     {
-        return masterList.indexOf(getEntry(card));
+        return positions.getOrDefault(card, -1);
     }
 
     @Override
@@ -768,7 +827,7 @@ public class Deck implements CardList
                         category.spec.include(card);
                     category.filtrate.remove(card);
                 }
-                masterList.remove(entry);
+                removeEntry(entry);
             }
             total -= removed;
         }
@@ -776,6 +835,34 @@ public class Deck implements CardList
         return removed;
     }
 
+    /**
+     * Remove an entry from {@link #masterList} and update the positions of the entries
+     * after it.
+     *
+     * @param entry entry to remove
+     */
+    private void removeEntry(DeckEntry entry)
+    {
+        int index = positions.remove(entry.card);
+        masterList.remove(index);
+        entries.remove(entry.card);
+        reindex(index);
+        for (MembershipListener listener : listeners)
+            listener.membershipChanged(entry.card, false);
+    }
+
+    /**
+     * Update the positions of the entries in {@link #masterList} starting from the given
+     * index.
+     *
+     * @param start index of the first entry whose position should be updated
+     */
+    private void reindex(int start)
+    {
+        for (int i = start; i < masterList.size(); i++)
+            positions.put(masterList.get(i).card, i);
+    }
+
     /**
      * Remove a category from the deck.
      *
@@ -825,6 +912,16 @@ public class Deck implements CardList
             return false;
     }
 
+    /**
+     * Stop notifying a listener about cards being added to or removed from this Deck.
+     *
+     * @param listener listener to remove
+     */
+    public void removeMembershipListener(MembershipListener listener)
+    {
+        listeners.remove(listener);
+    }
+
     @Override
     public Map<Card, Integer> removeAll(CardList cards)
     {
@@ -870,7 +967,7 @@ public class Deck implements CardList
             e.count = amount;
             if (e.count == 0)
             {
-                masterList.remove(e);
+                removeEntry(e);
                 for (Category category : categories.values())
                 {
                     category.filtrate.remove(e.card);
@@ -968,6 +1065,7 @@ public class Deck implements CardList
     public void sort(Comparator<? super CardList.Entry> c)
     {
         masterList.sort(c);
+        reindex(0);
         for (Category category : categories.values())
             category.filtrate.sort((a, b) -> c.compare(getEntry(a), getEntry(b)));
     }
@@ -0,0 +1,233 @@
+package editor.collection.export;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
+
+import editor.collection.deck.Deck;
+import editor.database.card.Card;
+import editor.gui.editor.DeckSerializer;
+import editor.util.LineReader;
+
+/**
+ * Pipeline for importing a card list from lines of text.  Lines are read in batches,
+ * which are resolved into cards by worker threads, and then the results are added to
+ * the deck in the same order as the lines they came from.  Blank lines are skipped.  A
+ * line that can't be resolved starts a new extra list named after it, as a sideboard
+ * heading would.  If no cards are added to that list before the next such line or the end
+ * of the input, the line probably wasn't meant to be a heading, so the reason it couldn't
+ * be resolved is recorded along with any warnings about lines that could.
+ *
+ * @author Alec Roelke
+ */
+class CardListImporter
+{
+    /**
+     * Number of lines each worker thread resolves at a time.
+     */
+    public static final int BATCH_SIZE = 256;
+    /**
+     * Maximum number of batches that can be waiting to be added to the deck before
+     * reading more lines.
+     */
+    private static final int MAX_PENDING = Runtime.getRuntime().availableProcessors()*2;
+
+    /**
+     * Card and information about it identified from a line of text.
+     *
+     * @param card card the line refers to
+     * @param count number of copies of the card
+     * @param date date the card was added
+     * @param warning problem with the line that didn't prevent the card from being
+     * identified, or null if there wasn't one
+     *
+     * @author Alec Roelke
+     */
+    public record Entry(Card card, int count, LocalDate date, String warning) {}
+
+    /**
+     * Function that identifies a card from a line of text.  It may be called from any
+     * thread, so it must not modify any shared state.
+     *
+     * @author Alec Roelke
+     */
+    @FunctionalInterface
+    public interface Resolver
+    {
+        /**
+         * Identify the card a line refers to.
+         *
+         * @param line line to resolve
+         * @return the card and information about it identified from the line.
+         * @throws ParseException if no card could be identified
+         */
+        Entry resolve(String line) throws ParseException;
+    }
+
+    /**
+     * Result of resolving a line, which has either an entry or an error but not both.  A
+     * blank line has neither.
+     *
+     * @param text text of the line
+     * @param entry entry resolved from the line, or null if it couldn't be resolved or is blank
+     * @param error reason the line couldn't be resolved, or null if it could or is blank
+     *
+     * @author Alec Roelke
+     */
+    private record Resolved(String text, Entry entry, ParseException error) {}
+
+    /**
+     * Function used to identify cards from lines.
+     */
+    private final Resolver resolver;
+    /**
+     * Function converting unresolved lines into names of extra lists.
+     */
+    private final UnaryOperator<String> extraName;
+    /**
+     * Problems found with lines, in order.
+     */
+    private final List<LineError> errors;
+
+    /**
+     * Create a new CardListImporter.
+     *
+     * @param r function used to identify cards from lines
+     * @param n function converting lines that can't be resolved into extra list names
+     */
+    public CardListImporter(Resolver r, UnaryOperator<String> n)
+    {
+        resolver = r;
+        extraName = n;
+        errors = new ArrayList<>();
+    }
+
+    /**
+     * Resolve a batch of lines.
+     *
+     * @param batch lines to resolve
+     * @return the results of resolving each line, in the same order.
+     */
+    private List<Resolved> resolve(List<String> batch)
+    {
+        var resolved = new ArrayList<Resolved>(batch.size());
+        for (String line : batch)
+        {
+            if (line.isBlank())
+            {
+                resolved.add(new Resolved(line, null, null));
+                continue;
+            }
+            try
+            {
+                resolved.add(new Resolved(line, resolver.resolve(line), null));
+            }
+            catch (ParseException e)
+            {
+                resolved.add(new Resolved(line, null, e));
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Wait for a batch to be resolved.
+     *
+     * @param batch batch to wait for
+     * @return the resolved lines.
+     * @throws InterruptedIOException if the thread is interrupted while waiting
+     */
+    private static List<Resolved> await(Future<List<Resolved>> batch) throws InterruptedIOException
+    {
+        try
+        {
+            return batch.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("import interrupted");
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException r)
+                throw r;
+            else if (e.getCause() instanceof Error r)
+                throw r;
+            else
+                throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Read the remaining lines from a reader and import them.
+     *
+     * @param lines reader to read lines from
+     * @param first number of the next line in the reader, starting from 1
+     * @return the deck and extra lists read from the lines.
+     * @throws IOException if the lines can't be read
+     */
+    public DeckSerializer read(LineReader lines, long first) throws IOException
+    {
+        Deck deck = new Deck();
+        Optional<String> extra = Optional.empty();
+        var extras = new LinkedHashMap<String, Deck>();
+        var pending = new ArrayDeque<Future<List<Resolved>>>();
+        long number = first;
+        LineError heading = null;
+        try
+        {
+            String line = lines.readLine();
+            while (line != null || !pending.isEmpty())
+            {
+                if (line != null && pending.size() < MAX_PENDING)
+                {
+                    var batch = new ArrayList<String>(BATCH_SIZE);
+                    for (; line != null && batch.size() < BATCH_SIZE; line = lines.readLine())
+                        batch.add(line);
+                    pending.add(ForkJoinPool.commonPool().submit(() -> resolve(batch)));
+                }
+                else
+                {
+                    for (Resolved r : await(pending.poll()))
+                    {
+                        if (r.entry() != null)
+                        {
+                            extra.map(extras::get).orElse(deck).add(r.entry().card(), r.entry().count(), r.entry().date());
+                            if (r.entry().warning() != null)
+                                errors.add(new LineError(number, r.text(), r.entry().warning(), true));
+                            heading = null;
+                        }
+                        else if (r.error() != null)
+                        {
+                            if (heading != null)
+                                errors.add(heading);
+                            extra = Optional.of(extraName.apply(r.text()));
+                            extras.put(extra.get(), new Deck());
+                            heading = new LineError(number, r.text(), r.error().getMessage(), false);
+                        }
+                        number++;
+                    }
+                }
+            }
+        }
+        finally
+        {
+            for (var batch : pending)
+                batch.cancel(true);
+        }
+        if (heading != null)
+            errors.add(heading);
+        return new DeckSerializer(deck, extras, "", "", errors);
+    }
+}
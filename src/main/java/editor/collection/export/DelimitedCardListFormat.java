@@ -7,8 +7,8 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
 import java.util.StringJoiner;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 import editor.collection.CardList;
@@ -18,6 +18,7 @@ import editor.database.card.Card;
 import editor.database.card.CardFormat;
 import editor.gui.MainFrame;
 import editor.gui.editor.DeckSerializer;
+import editor.util.LineReader;
 
 /**
  * This class represents a formatter that creates a table whose columns
@@ -123,10 +124,6 @@ public class DelimitedCardListFormat implements CardListFormat
      * Data types to include in the table.
      */
     private List<CardAttribute> types;
-    /**
-     * Current position in the text.
-     */
-    private int pos;
     /**
      * Indices where identifying information can be found.
      */
@@ -210,7 +207,7 @@ public class DelimitedCardListFormat implements CardListFormat
                         }
                     }
                     if (!success)
-                        throw new ParseException("unknown data type " + header, pos);
+                        throw new ParseException("unknown data type " + header, 0);
                 }
                 indices = new Indices(
                     types.indexOf(CardAttribute.NAME),
@@ -226,66 +223,42 @@ public class DelimitedCardListFormat implements CardListFormat
     /**
      * Attempt to identify a card from a line of delimited text.
      * 
-     * @param deck deck to add the parsed card to
      * @param line line to parse
+     * @return the card identified from the line and the information about it.
      * @throws ParseException if the line can't be parsed
      */
-    private void parseLine(Deck deck, String line) throws ParseException
+    private CardListImporter.Entry parseLine(String line) throws ParseException
     {
-        line = line.replace(ESCAPE + ESCAPE, ESCAPE);
-        String[] cells = split(delimiter, line);
+        String[] cells = split(delimiter, line.replace(ESCAPE + ESCAPE, ESCAPE));
 
-        var possibilities = MainFrame.inventory().stream().filter((c) -> c.unifiedName().equalsIgnoreCase(cells[indices.name])).collect(Collectors.toList());
+        var possibilities = new ArrayList<>(MainFrame.inventory().nameIndex().named(cells[indices.name]));
         if (possibilities.size() > 1 && indices.expansion > -1)
             possibilities.removeIf((c) -> !c.expansion().name().equalsIgnoreCase(cells[indices.expansion]));
         if (possibilities.size() > 1 && indices.number > -1)
             possibilities.removeIf((c) -> !String.join(Card.FACE_SEPARATOR, c.number()).equals(cells[indices.number]));
 
-        if (possibilities.size() > 1)
-            System.err.println("warning: cannot determine printing of " + possibilities.get(0).unifiedName());
         if (possibilities.isEmpty())
-            throw new ParseException("can't find card named " + cells[indices.name], pos);
-        deck.add(possibilities.get(0), indices.count < 0 ? 1 : Integer.parseInt(cells[indices.count]), indices.date < 0 ? LocalDate.now() : LocalDate.parse(cells[indices.date], Deck.DATE_FORMATTER));
+            throw new ParseException("can't find card named " + cells[indices.name], 0);
+        return new CardListImporter.Entry(
+            possibilities.get(0),
+            indices.count < 0 ? 1 : Integer.parseInt(cells[indices.count]),
+            indices.date < 0 ? LocalDate.now() : LocalDate.parse(cells[indices.date], Deck.DATE_FORMATTER),
+            possibilities.size() > 1 ? "cannot determine printing of " + possibilities.get(0).unifiedName() : null
+        );
     }
 
     @Override
     public DeckSerializer parse(InputStream source) throws ParseException, IOException
     {
-        Deck deck = new Deck();
-        Optional<String> extra = Optional.empty();
-        var extras = new LinkedHashMap<String, Deck>();
-        pos = 0;
-        int c;
-        StringBuilder line = new StringBuilder(128);
-        boolean headed = false;
-        do
+        var lines = new LineReader(source);
+        if (!include)
         {
-            c = source.read();
-            if (c >= 0 && c != '\r' && c != '\n')
-                line.append((char)c);
-            if (c == '\n' || c < 0)
-            {
-                if (!headed && !include)
-                {
-                    parseHeader(line.toString());
-                    headed = true;
-                }
-                else
-                {
-                    try
-                    {
-                        parseLine(extra.map(extras::get).orElse(deck), line.toString());
-                    }
-                    catch (ParseException e)
-                    {
-                        extra = Optional.of(line.toString());
-                        extras.put(extra.get(), new Deck());
-                    }
-                }
-                line.setLength(0);
-            }
-            pos++;
-        } while (c >= 0);
-        return new DeckSerializer(deck, extras, "", "");
+            String header = lines.readLine();
+            if (header == null)
+                return new DeckSerializer(new Deck(), new LinkedHashMap<>(), "", "");
+            parseHeader(header);
+        }
+        var importer = new CardListImporter(this::parseLine, UnaryOperator.identity());
+        return importer.read(lines, include ? 1 : 2);
     }
 }
@@ -0,0 +1,23 @@
+package editor.collection.export;
+
+/**
+ * Problem found with a line of text while importing a card list.  Either no card could be
+ * identified from the line, or one was but there was something uncertain about it, such as
+ * which printing it was.
+ *
+ * @param line number of the line, starting from 1
+ * @param text text of the line
+ * @param message description of the problem
+ * @param resolved <code>true</code> if a card was still identified from the line, and
+ * <code>false</code> otherwise
+ *
+ * @author Alec Roelke
+ */
+public record LineError(long line, String text, String message, boolean resolved)
+{
+    @Override
+    public String toString()
+    {
+        return "line " + line + ": " + message;
+    }
+}
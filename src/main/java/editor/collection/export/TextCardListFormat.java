@@ -6,8 +6,6 @@ import java.text.ParseException;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.Date;
-import java.util.LinkedHashMap;
-import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -15,10 +13,10 @@ import java.util.stream.Collectors;
 import com.joestelmach.natty.Parser;
 
 import editor.collection.CardList;
-import editor.collection.deck.Deck;
 import editor.database.card.CardFormat;
 import editor.gui.MainFrame;
 import editor.gui.editor.DeckSerializer;
+import editor.util.LineReader;
 
 /**
  * This class represents a formatter that formats a card list according to a
@@ -36,6 +34,11 @@ public class TextCardListFormat implements CardListFormat
      * Pattern used to determine the number of copies of a card in a deck.
      */
     public static final Pattern COUNT_PATTERN = Pattern.compile("(?:^(?:\\d+x|x\\d+|\\d+)|(?:\\d+x|x\\d+|\\d+)$)");
+    /**
+     * Parser used to find dates in lines, which is expensive to create and can't be
+     * shared between threads.
+     */
+    private static final ThreadLocal<Parser> DATE_PARSER = ThreadLocal.withInitial(Parser::new);
 
     /**
      * Format to use for formatting a card list
@@ -69,58 +72,38 @@ public class TextCardListFormat implements CardListFormat
      * Attempt to identify which card a line references, along with other information such
      * as count and date added.
      * 
-     * @param deck deck to add the parsed card to
      * @param line line to parse
+     * @return the card referenced by the line and the information about it.
      * @throws ParseException if the line can't be parsed
      */
-    private void parseLine(Deck deck, String line) throws ParseException
+    private CardListImporter.Entry parseLine(String line) throws ParseException
     {
-        var possibilities = MainFrame.inventory().stream().filter((c) -> line.contains(c.unifiedName().toLowerCase()) || c.name().stream().anyMatch((n) -> line.contains(n.toLowerCase()))).collect(Collectors.toList());
+        String lower = line.trim().toLowerCase();
+        var possibilities = MainFrame.inventory().nameIndex().containedIn(lower);
         if (possibilities.isEmpty())
-            throw new ParseException("Can't parse card name from \"" + line.trim() + '"', 0);
+            throw new ParseException("Can't parse card name from \"" + lower + '"', 0);
 
-        var filtered = possibilities.stream().filter((c) -> line.contains(c.expansion().name().toLowerCase())).collect(Collectors.toList());
+        var filtered = possibilities.stream().filter((c) -> lower.contains(c.expansion().name().toLowerCase())).collect(Collectors.toList());
         if (!filtered.isEmpty())
             possibilities = filtered;
         filtered = possibilities.stream().filter((c) -> !c.unifiedName().toLowerCase().equals(c.expansion().name().toLowerCase())).collect(Collectors.toList());
         if (!filtered.isEmpty())
             possibilities = filtered;
 
-        if (possibilities.size() > 1)
-            System.err.println("Multiple matches for \"" + line.trim() + '"');
-
-        Matcher countMatcher = COUNT_PATTERN.matcher(line);
-        LocalDate date = new Parser().parse(line).stream().flatMap((g) -> g.getDates().stream()).findFirst().orElse(new Date()).toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-        deck.add(possibilities.get(0), countMatcher.find() ? Integer.parseInt(countMatcher.group().replace("x", "")) : 1, date);
+        Matcher countMatcher = COUNT_PATTERN.matcher(lower);
+        LocalDate date = DATE_PARSER.get().parse(lower).stream().flatMap((g) -> g.getDates().stream()).findFirst().orElse(new Date()).toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        return new CardListImporter.Entry(
+            possibilities.get(0),
+            countMatcher.find() ? Integer.parseInt(countMatcher.group().replace("x", "")) : 1,
+            date,
+            possibilities.size() > 1 ? "Multiple matches for \"" + lower + '"' : null
+        );
     }
 
     @Override
     public DeckSerializer parse(InputStream source) throws ParseException, IOException
     {
-        Deck deck = new Deck();
-        Optional<String> extra = Optional.empty();
-        var extras = new LinkedHashMap<String, Deck>();
-        int c;
-        StringBuilder line = new StringBuilder(128);
-        do
-        {
-            c = source.read();
-            if (c >= 0 && c != '\r' && c != '\n')
-                line.append((char)c);
-            if (c == '\n' || c < 0)
-            {
-                try
-                {
-                    parseLine(extra.map(extras::get).orElse(deck), line.toString().trim().toLowerCase());
-                }
-                catch (ParseException e)
-                {
-                    extra = Optional.of(line.toString().trim());
-                    extras.put(extra.get(), new Deck());
-                }
-                line.setLength(0);
-            }
-        } while (c >= 0);
-        return new DeckSerializer(deck, extras, "", "");
+        var importer = new CardListImporter(this::parseLine, String::trim);
+        return importer.read(new LineReader(source), 1);
     }
 }
@@ -76,6 +76,14 @@ public class ManaCost extends AbstractList<ManaSymbol> implements Comparable<Man
      * Total color weight of the Symbols in this ManaCost.
      */
     private Map<ManaType, Double> intensity;
+    /**
+     * Mana value of this ManaCost.
+     */
+    private final double value;
+    /**
+     * Color weights of this ManaCost in increasing order, for comparing costs.
+     */
+    private final double[] sortedIntensity;
 
     /**
      * Create a new, empty mana cost.
@@ -98,6 +106,8 @@ public class ManaCost extends AbstractList<ManaSymbol> implements Comparable<Man
         for (ManaSymbol sym : cost)
             for (var e : sym.colorIntensity().entrySet())
                 intensity.compute(e.getKey(), (k, v) -> e.getValue() + v);
+        value = cost.stream().mapToDouble(ManaSymbol::value).sum();
+        sortedIntensity = intensity.values().stream().mapToDouble(Double::doubleValue).sorted().toArray();
     }
 
     /**
@@ -116,7 +126,7 @@ public class ManaCost extends AbstractList<ManaSymbol> implements Comparable<Man
      */
     public double manaValue()
     {
-        return cost.stream().mapToDouble(ManaSymbol::value).sum();
+        return value;
     }
 
     /**
@@ -253,15 +263,11 @@ public class ManaCost extends AbstractList<ManaSymbol> implements Comparable<Man
         else
         {
             // Start by sorting by mana value
-            int diff = (int)(2 * (manaValue() - o.manaValue()));
+            int diff = (int)(2 * (value - o.value));
             // If the two costs have the same mana value, sort them by symbol color intensity
             if (diff == 0)
-            {
-                var intensityList = intensity.values().stream().sorted().collect(Collectors.toList());
-                var oIntensityList = o.intensity.values().stream().sorted().collect(Collectors.toList());
-                for (int i = 0; i < ManaType.values().length; i++)
-                    diff += (intensityList.get(i) - oIntensityList.get(i))*Math.pow(10, i);
-            }
+                for (int i = 0; i < sortedIntensity.length; i++)
+                    diff += (sortedIntensity[i] - o.sortedIntensity[i])*Math.pow(10, i);
             // If the two costs have the same intensity, sort them by color
             if (diff == 0)
                 for (int i = 0; diff == 0 && i < Math.min(size(), o.size()); i++)
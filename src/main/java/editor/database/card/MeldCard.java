@@ -52,6 +52,15 @@ public class MeldCard extends MultiCard
         manaCost = new Lazy<>(() -> List.of(front.manaCost().get(0), new ManaCost()));
     }
 
+    /**
+     * @return The other front face of this MeldCard, with which it melds to form the
+     * back face.
+     */
+    public Card other()
+    {
+        return other;
+    }
+
     /**
      * {@inheritDoc}
      * The mana value of a meld card is that of its front face (after melding it's the
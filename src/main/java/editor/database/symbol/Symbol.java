@@ -2,6 +2,8 @@ package editor.database.symbol;
 
 import java.awt.Image;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.regex.Pattern;
 
@@ -31,6 +33,32 @@ public abstract class Symbol
      * Name for a Symbol whose icon file can't be found.
      */
     public static final String UNKNOWN_ICON = "unknown.png";
+    /**
+     * Maximum number of scaled icons to keep in {@link #SCALED_ICONS}.
+     */
+    private static final int MAX_SCALED_ICONS = 512;
+    /**
+     * Icons that have already been scaled, shared by all symbols that use the same icon
+     * file.  The least-recently used icon is dropped when there are too many.
+     */
+    private static final Map<ScaledIcon, Icon> SCALED_ICONS = new LinkedHashMap<>(MAX_SCALED_ICONS, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ScaledIcon, Icon> eldest)
+        {
+            return size() > MAX_SCALED_ICONS;
+        }
+    };
+
+    /**
+     * Key identifying a scaled icon.
+     *
+     * @param name name of the icon file
+     * @param size height of the scaled icon
+     *
+     * @author Alec Roelke
+     */
+    private record ScaledIcon(String name, int size) {}
 
     /**
      * Create a Symbol from a String.
@@ -115,13 +143,26 @@ public abstract class Symbol
 
     /**
      * Get this Symbol's icon with the specified width.  The height will be scaled accordingly as well.
+     * Scaled icons are cached, so the same one is returned as long as it is used often enough.
      *
      * @param newSize width of the icon
      * @return the resized icon
      */
     public Icon getIcon(int newSize)
     {
-        return new ImageIcon(icon.getImage().getScaledInstance(-1, newSize, Image.SCALE_SMOOTH));
+        var key = new ScaledIcon(name, newSize);
+        synchronized (SCALED_ICONS)
+        {
+            Icon scaled = SCALED_ICONS.get(key);
+            if (scaled != null)
+                return scaled;
+        }
+        Icon scaled = new ImageIcon(icon.getImage().getScaledInstance(-1, newSize, Image.SCALE_SMOOTH));
+        synchronized (SCALED_ICONS)
+        {
+            SCALED_ICONS.putIfAbsent(key, scaled);
+            return SCALED_ICONS.get(key);
+        }
     }
 
     /**
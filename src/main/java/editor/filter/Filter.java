@@ -1,10 +1,13 @@
 package editor.filter;
 
+import java.util.BitSet;
+import java.util.concurrent.CancellationException;
 import java.util.function.Predicate;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
+import editor.collection.Inventory;
 import editor.database.attributes.CardAttribute;
 import editor.database.card.Card;
 
@@ -65,6 +68,91 @@ public abstract class Filter implements Predicate<Card>
         return type;
     }
 
+    /**
+     * Check if the cards that pass this Filter can only change when the Filter itself
+     * does, so the cards it selects can be indexed or cached.
+     *
+     * @return <code>true</code> if this Filter always passes the same cards, and
+     * <code>false</code> otherwise.
+     */
+    public boolean stable()
+    {
+        return true;
+    }
+
+    /**
+     * Check if every card that passes this Filter also passes another one, so the
+     * cards this Filter passes can be found among those that pass the other one.  A
+     * Filter refines one that is equal to it, one that passes all cards, and groups
+     * whose results follow from it.  It's fine to return <code>false</code> even if
+     * this Filter is narrower, but never to return <code>true</code> if it isn't.
+     *
+     * @param other filter to compare with
+     * @return <code>true</code> if this Filter is at least as narrow as the other one,
+     * and <code>false</code> if it isn't or that can't be determined.
+     */
+    public boolean refines(Filter other)
+    {
+        if (equals(other) || other.type() == CardAttribute.ANY)
+            return true;
+        else if (other instanceof FilterGroup group && group.mode == FilterGroup.Mode.AND)
+            return group.children().stream().allMatch(this::refines);
+        else if (other instanceof FilterGroup group && group.mode == FilterGroup.Mode.OR)
+            return group.children().stream().anyMatch(this::refines);
+        else
+            return false;
+    }
+
+    /**
+     * Estimate how expensive it is to test a card with this Filter relative to other
+     * Filters, which is used to decide which filters in a group to evaluate first.
+     * Filters that compare a single value of a card are about 1.
+     *
+     * @return the relative cost of testing a card with this Filter.
+     */
+    public double cost()
+    {
+        return 1;
+    }
+
+    /**
+     * Find the cards in an {@link Inventory} that pass this Filter, out of a set
+     * of candidates.  By default, this tests each candidate, but subclasses that can
+     * use the Inventory's indices to do better should override it.
+     *
+     * @param inventory inventory containing the cards to filter
+     * @param candidates ordinals of the cards to filter, which is not modified
+     * @return the ordinals of the candidates that pass this Filter.
+     * @see Inventory#fromOrdinal(int)
+     */
+    public BitSet select(Inventory inventory, BitSet candidates)
+    {
+        return scan(inventory, candidates);
+    }
+
+    /**
+     * Find the cards in an {@link Inventory} that pass this Filter, out of a set
+     * of candidates, by testing each of them.  If the thread is interrupted, testing
+     * stops.
+     *
+     * @param inventory inventory containing the cards to filter
+     * @param candidates ordinals of the cards to filter, which is not modified
+     * @return the ordinals of the candidates that pass this Filter.
+     * @throws CancellationException if the thread is interrupted
+     */
+    protected final BitSet scan(Inventory inventory, BitSet candidates) throws CancellationException
+    {
+        BitSet selected = new BitSet(candidates.length());
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1))
+        {
+            if (Thread.currentThread().isInterrupted())
+                throw new CancellationException();
+            if (test(inventory.fromOrdinal(i)))
+                selected.set(i);
+        }
+        return selected;
+    }
+
     /**
      * Add the fields of this Filter to the given {@link JsonObject}.
      * 
@@ -2,19 +2,22 @@ package editor.filter;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.BiPredicate;
-import java.util.function.Predicate;
 import java.util.stream.Collector;
-import java.util.stream.Stream;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
+import editor.collection.Inventory;
 import editor.database.attributes.CardAttribute;
 import editor.database.card.Card;
 
@@ -36,20 +39,25 @@ public class FilterGroup extends Filter implements Iterable<Filter>
         /**
          * All of the filters must pass a card.
          */
-        AND("all of", Stream::allMatch),
+        AND("all of", false, false),
         /**
          * None of the filters can pass a card.
          */
-        NOR("none of", Stream::noneMatch),
+        NOR("none of", true, false),
         /**
          * Any of the filters must pass a card.
          */
-        OR("any of", Stream::anyMatch);
+        OR("any of", true, true);
 
         /**
-         * Function representing the mode to test a card with a collection of filters.
+         * Result of a filter that decides the result of the whole group, so the rest
+         * don't have to be tested.
          */
-        private final BiPredicate<Stream<Filter>, Predicate<? super Filter>> function;
+        private final boolean decisive;
+        /**
+         * Result of the group if one of its filters has the decisive result.
+         */
+        private final boolean decided;
         /**
          * String representation of this Mode.
          */
@@ -59,17 +67,23 @@ public class FilterGroup extends Filter implements Iterable<Filter>
          * Create a new Mode.
          *
          * @param m String representation of the new Mode.
+         * @param d result of a filter that decides the group's result
+         * @param r the group's result if one of its filters has that result
          */
-        Mode(String m, BiPredicate<Stream<Filter>, Predicate<? super Filter>> f)
+        Mode(String m, boolean d, boolean r)
         {
             mode = m;
-            function = f;
+            decisive = d;
+            decided = r;
         }
 
         @Override
         public boolean test(Collection<Filter> filters, Card c)
         {
-            return function.test(filters.stream(), (f) -> f.test(c));
+            for (Filter filter : filters)
+                if (filter.test(c) == decisive)
+                    return decided;
+            return !decided;
         }
 
         @Override
@@ -88,6 +102,11 @@ public class FilterGroup extends Filter implements Iterable<Filter>
      * Combination mode of this FilterGroup.
      */
     public Mode mode;
+    /**
+     * Children of this FilterGroup in increasing order of cost, or <code>null</code>
+     * if they have changed since they were last sorted.
+     */
+    private volatile List<Filter> plan;
 
     /**
      * Create a new FilterGroup with no children and in AND mode.
@@ -97,6 +116,7 @@ public class FilterGroup extends Filter implements Iterable<Filter>
         super(CardAttribute.GROUP);
         children = new ArrayList<>();
         mode = Mode.AND;
+        plan = null;
     }
 
     /**
@@ -121,8 +141,12 @@ public class FilterGroup extends Filter implements Iterable<Filter>
     {
         children.add(filter);
         if (filter.parent != null)
+        {
             filter.parent.children.remove(filter);
+            filter.parent.plan = null;
+        }
         filter.parent = this;
+        plan = null;
     }
 
     /**
@@ -172,10 +196,138 @@ public class FilterGroup extends Filter implements Iterable<Filter>
         return children.iterator();
     }
 
+    /**
+     * Get the children of this FilterGroup in increasing order of cost, which is the
+     * best order to test a single card in without knowing how many cards they pass.
+     *
+     * @return the children of this FilterGroup sorted by cost.
+     */
+    private List<Filter> plan()
+    {
+        var p = plan;
+        if (p == null)
+        {
+            p = new ArrayList<>(children);
+            p.sort(Comparator.comparingDouble(Filter::cost));
+            plan = p;
+        }
+        return p;
+    }
+
+    /**
+     * Get the children of this FilterGroup in the best order to select cards from an
+     * inventory with them.  When there are more candidates than cards in the
+     * inventory's {@link Inventory#sample() sample}, the fraction of the sample each
+     * child passes is used to estimate how many candidates' results it will decide,
+     * and children are sorted by their cost per decided candidate.  Otherwise they
+     * are only sorted by cost.
+     *
+     * @param inventory inventory containing the cards to select from
+     * @param candidates ordinals of the cards to select from
+     * @return the children of this FilterGroup in the order they should be evaluated.
+     */
+    private List<Filter> plan(Inventory inventory, BitSet candidates)
+    {
+        BitSet sample = inventory.sample();
+        int n = sample.cardinality();
+        if (children.size() < 2 || candidates.cardinality() <= n)
+            return plan();
+
+        var ranks = new IdentityHashMap<Filter, Double>();
+        for (Filter child : children)
+        {
+            double passed = (double)child.select(inventory, sample).cardinality()/n;
+            double decided = mode.decisive ? passed : 1 - passed;
+            ranks.put(child, decided > 0 ? child.cost()/decided : Double.POSITIVE_INFINITY);
+        }
+        var order = new ArrayList<>(children);
+        order.sort(Comparator.comparingDouble(ranks::get));
+        return order;
+    }
+
+    /**
+     * @return the children of this FilterGroup, which can't be modified.
+     */
+    List<Filter> children()
+    {
+        return Collections.unmodifiableList(children);
+    }
+
+    @Override
+    public double cost()
+    {
+        return children.stream().mapToDouble(Filter::cost).sum();
+    }
+
+    @Override
+    public boolean stable()
+    {
+        return children.stream().allMatch(Filter::stable);
+    }
+
+    /**
+     * {@inheritDoc}
+     * A group of all of its children refines the filters any of them refine, and a group
+     * of any of its children refines the filters all of them refine.
+     */
+    @Override
+    public boolean refines(Filter other)
+    {
+        if (super.refines(other))
+            return true;
+        else if (mode == Mode.AND)
+            return children.stream().anyMatch((c) -> c.refines(other));
+        else if (mode == Mode.OR)
+            return children.stream().allMatch((c) -> c.refines(other));
+        else
+            return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Children are tested in increasing order of cost.
+     */
     @Override
     public boolean test(Card c)
     {
-        return mode.test(children, c);
+        return mode.test(plan(), c);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Children are evaluated in the order given by {@link #plan(Inventory, BitSet)},
+     * and each one is only given the candidates whose results haven't been decided by
+     * the ones before it.
+     */
+    @Override
+    public BitSet select(Inventory inventory, BitSet candidates)
+    {
+        List<Filter> order = plan(inventory, candidates);
+        if (mode == Mode.AND)
+        {
+            BitSet selected = (BitSet)candidates.clone();
+            for (Filter child : order)
+            {
+                if (selected.isEmpty())
+                    break;
+                selected = child.select(inventory, selected);
+            }
+            return selected;
+        }
+        else
+        {
+            BitSet any = new BitSet(candidates.length());
+            BitSet remaining = (BitSet)candidates.clone();
+            for (Filter child : order)
+            {
+                if (remaining.isEmpty())
+                    break;
+                BitSet passed = child.select(inventory, remaining);
+                any.or(passed);
+                remaining.andNot(passed);
+            }
+            return mode == Mode.OR ? any : remaining;
+        }
     }
 
     @Override
@@ -198,7 +350,7 @@ public class FilterGroup extends Filter implements Iterable<Filter>
             CardAttribute type = CardAttribute.fromString(element.getAsJsonObject().get("type").getAsString());
             Filter child = type == CardAttribute.GROUP ? new FilterGroup() : CardAttribute.createFilter(type);
             child.fromJsonObject(element.getAsJsonObject());
-            children.add(child);
+            addChild(child);
         }
     }
 }
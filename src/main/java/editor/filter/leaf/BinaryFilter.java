@@ -1,9 +1,11 @@
 package editor.filter.leaf;
 
+import java.util.BitSet;
 import java.util.Objects;
 
 import com.google.gson.JsonObject;
 
+import editor.collection.Inventory;
 import editor.database.attributes.CardAttribute;
 import editor.database.card.Card;
 import editor.filter.Filter;
@@ -68,6 +70,18 @@ public class BinaryFilter extends FilterLeaf<Void>
         return all;
     }
 
+    @Override
+    public double cost()
+    {
+        return 0;
+    }
+
+    @Override
+    public BitSet select(Inventory inventory, BitSet candidates)
+    {
+        return all ? (BitSet)candidates.clone() : new BitSet();
+    }
+
     @Override
     protected void serializeFields(JsonObject fields)
     {
@@ -1,6 +1,9 @@
 package editor.filter.leaf;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import java.util.StringJoiner;
 import java.util.function.Function;
@@ -10,6 +13,8 @@ import java.util.regex.Pattern;
 
 import com.google.gson.JsonObject;
 
+import editor.collection.Inventory;
+import editor.collection.InventoryTextIndex;
 import editor.database.attributes.CardAttribute;
 import editor.database.card.Card;
 import editor.filter.Filter;
@@ -26,6 +31,14 @@ public class TextFilter extends FilterLeaf<Collection<String>>
      * Regex pattern for extracting words or phrases between quotes from a String.
      */
     public static final Pattern WORD_PATTERN = Pattern.compile("\"([^\"]*)\"|'([^']*)'|[^\\s]+");
+    /**
+     * Relative cost of searching a card's text for words or a literal string.
+     */
+    private static final double LITERAL_COST = 3;
+    /**
+     * Relative cost of matching a card's text against a regular expression.
+     */
+    private static final double REGEX_COST = 10;
 
     /**
      * Create a new TextFilter that filters out cards whose characteristic
@@ -50,31 +63,216 @@ public class TextFilter extends FilterLeaf<Collection<String>>
     }
 
     /**
-     * Create a regex pattern matcher that searches a string for a set of words and quote-enclosed phrases
-     * separated by spaces, where * is a wild card.
+     * Split a string into the words and quote-enclosed phrases that make it up.
      *
-     * @param pattern string pattern to create a regex matcher out of
-     * @return a predicate that searches a string for the words and phrases in the given string.
+     * @param pattern string to split
+     * @return the list of words and phrases in the string.
      */
-    public static Predicate<String> createSimpleMatcher(String pattern)
+    private static List<String> words(String pattern)
     {
+        var words = new ArrayList<String>();
         Matcher m = WORD_PATTERN.matcher(pattern);
-        StringJoiner str = new StringJoiner("\\E(?:^|$|\\W))(?=.*(?:^|$|\\W)\\Q", "^(?=.*(?:^|$|\\W)\\Q", "\\E(?:^|$|\\W)).*$");
         while (m.find())
         {
-            String toAdd;
             if (m.group(1) != null)
-                toAdd = m.group(1);
+                words.add(m.group(1));
             else if (m.group(1) != null)
-                toAdd = m.group(2);
+                words.add(m.group(2));
             else
-                toAdd = m.group();
-            str.add(toAdd.replace("*", "\\E\\w*\\Q"));
+                words.add(m.group());
         }
+        return words;
+    }
+
+    /**
+     * Create a regex pattern matcher that searches a string for a set of words and quote-enclosed phrases
+     * separated by spaces, where * is a wild card.
+     *
+     * @param pattern string pattern to create a regex matcher out of
+     * @return a predicate that searches a string for the words and phrases in the given string.
+     */
+    public static Predicate<String> createSimpleMatcher(String pattern)
+    {
+        var words = words(pattern);
+        if (isLiteral(words))
+            return (s) -> containsAllWords(s, words);
+
+        StringJoiner str = new StringJoiner("\\E(?:^|$|\\W))(?=.*(?:^|$|\\W)\\Q", "^(?=.*(?:^|$|\\W)\\Q", "\\E(?:^|$|\\W)).*$");
+        for (String word : words)
+            str.add(word.replace("*", "\\E\\w*\\Q"));
+        Pattern p = Pattern.compile(str.toString(), Pattern.MULTILINE|Pattern.CASE_INSENSITIVE);
+        return (s) -> p.matcher(s).find();
+    }
+
+    /**
+     * Create a regex pattern matcher that searches a string for any of a set of words and quote-enclosed
+     * phrases separated by spaces, where * is a wild card.
+     *
+     * @param pattern string pattern to create a regex matcher out of
+     * @return a predicate that searches a string for any of the words and phrases in the given string.
+     */
+    private static Predicate<String> createAnyMatcher(String pattern)
+    {
+        var words = words(pattern);
+        if (isLiteral(words))
+            return (s) -> words.stream().anyMatch((w) -> indexOfWord(s, w, 0, s.length()) >= 0);
+
+        StringJoiner str = new StringJoiner("\\E(?:^|$|\\W))|((?:^|$|\\W)\\Q", "((?:^|$|\\W)\\Q", "\\E(?:^|$|\\W))");
+        for (String word : words)
+            str.add(word.replace("*", "\\E\\w*\\Q"));
         Pattern p = Pattern.compile(str.toString(), Pattern.MULTILINE|Pattern.CASE_INSENSITIVE);
         return (s) -> p.matcher(s).find();
     }
 
+    /**
+     * Check if a list of words can be searched for without a regular expression, which is the case
+     * if there is at least one word and none of them contain wild cards or line breaks.
+     *
+     * @param words words to check
+     * @return <code>true</code> if the words can be searched for literally, and <code>false</code>
+     * otherwise.
+     */
+    private static boolean isLiteral(List<String> words)
+    {
+        return !words.isEmpty() && words.stream().noneMatch((w) -> w.contains("*") || w.chars().anyMatch(TextFilter::isLineTerminator));
+    }
+
+    /**
+     * @param c character to check
+     * @return <code>true</code> if the character ends a line as defined by {@link Pattern#MULTILINE},
+     * and <code>false</code> otherwise.
+     */
+    private static boolean isLineTerminator(int c)
+    {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * Compare two characters, ignoring case only for ASCII letters like {@link Pattern#CASE_INSENSITIVE}.
+     *
+     * @param a first character
+     * @param b second character
+     * @return <code>true</code> if the characters are the same, and <code>false</code> otherwise.
+     */
+    private static boolean equalsIgnoreCase(char a, char b)
+    {
+        if (a == b)
+            return true;
+        if (a >= 'A' && a <= 'Z')
+            a += 'a' - 'A';
+        if (b >= 'A' && b <= 'Z')
+            b += 'a' - 'A';
+        return a == b && a >= 'a' && a <= 'z';
+    }
+
+    /**
+     * Find a literal string within a range of another one, ignoring case.
+     *
+     * @param s string to search
+     * @param word string to find
+     * @param start index of the start of the range to search in
+     * @param end index after the end of the range to search in
+     * @param whole whether or not the match must be surrounded by non-word characters
+     * @return the index of the first occurrence of the string, or -1 if there isn't one.
+     */
+    private static int indexOf(String s, String word, int start, int end, boolean whole)
+    {
+        for (int i = start; i + word.length() <= end; i++)
+        {
+            if (whole && ((i > 0 && InventoryTextIndex.isWordChar(s.charAt(i - 1))) || (i + word.length() < s.length() && InventoryTextIndex.isWordChar(s.charAt(i + word.length())))))
+                continue;
+            boolean match = true;
+            for (int j = 0; match && j < word.length(); j++)
+                match = equalsIgnoreCase(s.charAt(i + j), word.charAt(j));
+            if (match)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Find a word or phrase within a range of a string.  It must be surrounded by non-word characters
+     * or the ends of the string.
+     *
+     * @param s string to search
+     * @param word word or phrase to find
+     * @param start index of the start of the range to search in
+     * @param end index after the end of the range to search in
+     * @return the index of the first occurrence of the word, or -1 if there isn't one.
+     */
+    private static int indexOfWord(String s, String word, int start, int end)
+    {
+        return indexOf(s, word, start, end, true);
+    }
+
+    /**
+     * Check if all of a list of words appear on the same line of a string, which is what the regex
+     * created by {@link #createSimpleMatcher(String)} checks.  Like that regex, a word that starts
+     * immediately after a line break also counts as being on the line before it.
+     *
+     * @param s string to search
+     * @param words words to find
+     * @return <code>true</code> if some line of the string contains all of the words, and
+     * <code>false</code> otherwise.
+     */
+    private static boolean containsAllWords(String s, List<String> words)
+    {
+        int start = 0;
+        while (start <= s.length())
+        {
+            int end = start;
+            while (end < s.length() && !isLineTerminator(s.charAt(end)))
+                end++;
+            final int lineStart = start, lineEnd = end;
+            if (words.stream().allMatch((w) -> indexOfWord(s, w, lineStart, lineEnd < s.length() ? Math.min(s.length(), lineEnd + 1 + w.length()) : lineEnd) >= 0))
+                return true;
+            start = end + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Get the literal text a regular expression created by {@link Pattern#quote(String)} matches.
+     *
+     * @param regex regular expression to check
+     * @return the text quoted by the regular expression, or <code>null</code> if it isn't a simple
+     * quoted string.
+     */
+    private static String unquote(String regex)
+    {
+        if (regex.length() >= 4 && regex.startsWith("\\Q") && regex.endsWith("\\E"))
+        {
+            String literal = regex.substring(2, regex.length() - 2);
+            if (!literal.contains("\\E"))
+                return literal;
+        }
+        return null;
+    }
+
+    /**
+     * @param word word to check
+     * @return <code>true</code> if the word consists only of regex word characters, so a card's
+     * text contains it as a whole word exactly when it has a matching {@link InventoryTextIndex}
+     * token, and <code>false</code> otherwise.
+     */
+    private static boolean isToken(String word)
+    {
+        return !word.isEmpty() && word.chars().allMatch((c) -> InventoryTextIndex.isWordChar((char)c));
+    }
+
+    /**
+     * Text, regex flag, and containment this TextFilter's matcher was created from, along with the
+     * matcher, so it only has to be created again if they change.
+     *
+     * @param text text the matcher searches for
+     * @param regex whether or not the text is a regular expression
+     * @param contain containment type of the matcher
+     * @param matcher predicate that checks a string against the text
+     *
+     * @author Alec Roelke
+     */
+    private record CompiledText(String text, boolean regex, Containment contain, Predicate<String> matcher) {}
+
     /**
      * Containment type for this TextFilter.
      */
@@ -87,6 +285,10 @@ public class TextFilter extends FilterLeaf<Collection<String>>
      * Text to filter.
      */
     public String text;
+    /**
+     * Cached matcher for the current values of {@link #text}, {@link #regex}, and {@link #contain}.
+     */
+    private volatile CompiledText compiled;
 
     /**
      * Create a new TextFilter without a type or function.  Should only be used for
@@ -141,64 +343,238 @@ public class TextFilter extends FilterLeaf<Collection<String>>
     }
 
     /**
-     * {@inheritDoc}
-     * Cards are filtered by a text attribute that matches this TextFilter's text.
+     * Create a predicate that checks if a string matches some text.
+     *
+     * @param text text to match
+     * @param regex whether or not the text is a regular expression
+     * @param contain how the words in the text should be matched if it isn't a regular expression
+     * @return a predicate that checks a string against the text.
      */
-    @Override
-    public boolean test(Card c)
+    private static Predicate<String> compile(String text, boolean regex, Containment contain)
     {
         // If the filter is a regex, then just match it
         if (regex)
         {
+            String literal = unquote(text);
+            if (literal != null)
+                return (s) -> indexOf(s, literal, 0, s.length(), false) >= 0;
             Pattern p = Pattern.compile(text, Pattern.DOTALL|Pattern.CASE_INSENSITIVE);
-            return function().apply(c).stream().anyMatch((s) -> p.matcher(s).find());
+            return (s) -> p.matcher(s).find();
         }
         else
         {
             // If the filter is a "simple" string, then the characteristic matches if it matches the
             // filter text in any order with the specified set containment
-            Predicate<String> matcher;
-            switch (contain)
+            return switch (contain) {
+                case CONTAINS_ALL_OF -> createSimpleMatcher(text);
+                case CONTAINS_ANY_OF -> createAnyMatcher(text);
+                case CONTAINS_NONE_OF -> createAnyMatcher(text).negate();
+                case CONTAINS_NOT_ALL_OF -> createSimpleMatcher(text).negate();
+                case CONTAINS_NOT_EXACTLY -> (s) -> !s.equalsIgnoreCase(text);
+                case CONTAINS_EXACTLY -> (s) -> s.equalsIgnoreCase(text);
+                default -> (s) -> false;
+            };
+        }
+    }
+
+    /**
+     * Get the matcher for this TextFilter's current text, regex flag, and containment, creating
+     * it only if one of them has changed since the last time it was created.
+     *
+     * @return a predicate that checks a string against this TextFilter's text.
+     */
+    private Predicate<String> matcher()
+    {
+        String t = text;
+        boolean r = regex;
+        Containment k = contain;
+        CompiledText c = compiled;
+        if (c == null || c.regex() != r || c.contain() != k || !c.text().equals(t))
+            compiled = c = new CompiledText(t, r, k, compile(t, r, k));
+        return c.matcher();
+    }
+
+    /**
+     * {@inheritDoc}
+     * A TextFilter also refines another one for the same attribute if they search for
+     * literal strings and its string contains the other's, or if they search for words
+     * and it searches for all of more words, any of fewer words, or none of more words.
+     */
+    @Override
+    public boolean refines(Filter other)
+    {
+        if (super.refines(other))
+            return true;
+        else if (other instanceof TextFilter o && o.type() == type() && o.regex == regex)
+        {
+            if (regex)
+            {
+                String literal = unquote(text), otherLiteral = unquote(o.text);
+                return literal != null && otherLiteral != null && InventoryTextIndex.lower(literal).contains(InventoryTextIndex.lower(otherLiteral));
+            }
+            else if (o.contain == contain)
+            {
+                var words = words(text);
+                var otherWords = words(o.text);
+                if (words.isEmpty() || otherWords.isEmpty())
+                    return false;
+                return switch (contain) {
+                    case CONTAINS_ALL_OF, CONTAINS_NONE_OF -> words.containsAll(otherWords);
+                    case CONTAINS_ANY_OF -> otherWords.containsAll(words);
+                    default -> false;
+                };
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public double cost()
+    {
+        if (regex)
+            return unquote(text) == null ? REGEX_COST : LITERAL_COST;
+        else
+            return isLiteral(words(text)) ? LITERAL_COST : REGEX_COST;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Cards are filtered by a text attribute that matches this TextFilter's text.
+     */
+    @Override
+    public boolean test(Card c)
+    {
+        return function().apply(c).stream().anyMatch(matcher());
+    }
+
+    /**
+     * Find the cards that might contain a whole word.  Since the word has to be surrounded
+     * by non-word characters, each of its runs of word characters must be a whole token.
+     *
+     * @param index index to search
+     * @param word word to search for
+     * @return the ordinals of the cards containing all of the tokens in the word.
+     */
+    private BitSet withWord(InventoryTextIndex index, String word)
+    {
+        var tokens = InventoryTextIndex.tokens(word);
+        BitSet cards = index.withToken(type(), tokens.get(0));
+        for (int i = 1; i < tokens.size(); i++)
+            cards.and(index.withToken(type(), tokens.get(i)));
+        return cards;
+    }
+
+    /**
+     * Find the cards containing a literal string using an index.  Each run of word characters
+     * in the string must be part of a token, and if there's only one and it's the whole string,
+     * that is enough.  Otherwise, the cards found that way are tested.
+     *
+     * @param inventory inventory containing the cards
+     * @param candidates ordinals of the cards to search
+     * @param literal string to search for
+     * @return the ordinals of the candidates containing the string.
+     */
+    private BitSet selectLiteral(Inventory inventory, BitSet candidates, String literal)
+    {
+        BitSet possible = (BitSet)candidates.clone();
+        for (String token : InventoryTextIndex.tokens(literal))
+            possible.and(inventory.textIndex().withTokenContaining(type(), token));
+        return isToken(literal) ? possible : scan(inventory, possible);
+    }
+
+    /**
+     * Find the cards containing any or none of a list of words using an index.  Cards that
+     * contain a word without non-word characters definitely contain it, but cards that
+     * contain the tokens of one that does have them have to be tested.  Cards with more or
+     * fewer than one value are always tested when searching for ones without the words, since
+     * a card passes if any of its values has none of them.
+     *
+     * @param inventory inventory containing the cards
+     * @param candidates ordinals of the cards to search
+     * @param words words to search for
+     * @param any whether to find cards with any of the words (<code>true</code>) or none of
+     * them (<code>false</code>)
+     * @return the ordinals of the candidates that pass this TextFilter.
+     */
+    private BitSet selectAny(Inventory inventory, BitSet candidates, List<String> words, boolean any)
+    {
+        BitSet definite = new BitSet();
+        BitSet possible = new BitSet();
+        for (String word : words)
+            (isToken(word) ? definite : possible).or(withWord(inventory.textIndex(), word));
+        possible.andNot(definite);
+        if (any)
+        {
+            definite.and(candidates);
+            possible.and(candidates);
+            definite.or(scan(inventory, possible));
+            return definite;
+        }
+        else
+        {
+            BitSet single = inventory.textIndex().singleValued(type());
+            single.and(candidates);
+            BitSet other = (BitSet)candidates.clone();
+            other.andNot(single);
+            single.andNot(definite);
+            possible.and(single);
+            single.andNot(possible);
+            single.or(scan(inventory, possible));
+            single.or(scan(inventory, other));
+            return single;
+        }
+    }
+
+    /**
+     * Find the cards containing all of a list of words using an index.  Only cards containing
+     * all of the words' tokens can pass, but, unless there's only one word and it has no non-word
+     * characters, those have to be tested to make sure the words are on the same line.
+     *
+     * @param inventory inventory containing the cards
+     * @param candidates ordinals of the cards to search
+     * @param words words to search for
+     * @return the ordinals of the candidates that contain all of the words.
+     */
+    private BitSet selectAll(Inventory inventory, BitSet candidates, List<String> words)
+    {
+        BitSet possible = (BitSet)candidates.clone();
+        for (String word : words)
+            possible.and(withWord(inventory.textIndex(), word));
+        return words.size() == 1 && isToken(words.get(0)) ? possible : scan(inventory, possible);
+    }
+
+    /**
+     * {@inheritDoc}
+     * If the inventory indexes this TextFilter's attribute, it is used to find the cards that
+     * contain the text when it is a literal string or a list of words without wild cards,
+     * testing only the ones the index can't decide.
+     */
+    @Override
+    public BitSet select(Inventory inventory, BitSet candidates)
+    {
+        if (inventory.textIndex().indexes(type()))
+        {
+            if (regex)
+            {
+                String literal = unquote(text);
+                if (literal != null && !InventoryTextIndex.tokens(literal).isEmpty())
+                    return selectLiteral(inventory, candidates, literal);
+            }
+            else
             {
-            case CONTAINS_ALL_OF:
-                matcher = createSimpleMatcher(text);
-                break;
-            case CONTAINS_ANY_OF:
-            case CONTAINS_NONE_OF:
-                Matcher m = TextFilter.WORD_PATTERN.matcher(text);
-                StringJoiner str = new StringJoiner("\\E(?:^|$|\\W))|((?:^|$|\\W)\\Q", "((?:^|$|\\W)\\Q", "\\E(?:^|$|\\W))");
-                while (m.find())
+                var words = words(text);
+                if (isLiteral(words) && words.stream().noneMatch((w) -> InventoryTextIndex.tokens(w).isEmpty()))
                 {
-                    String toAdd;
-                    if (m.group(1) != null)
-                        toAdd = m.group(1);
-                    else if (m.group(1) != null)
-                        toAdd = m.group(2);
-                    else
-                        toAdd = m.group();
-                    str.add(toAdd.replace("*", "\\E\\w*\\Q"));
+                    return switch (contain) {
+                        case CONTAINS_ANY_OF -> selectAny(inventory, candidates, words, true);
+                        case CONTAINS_NONE_OF -> selectAny(inventory, candidates, words, false);
+                        case CONTAINS_ALL_OF -> selectAll(inventory, candidates, words);
+                        default -> scan(inventory, candidates);
+                    };
                 }
-                Pattern p = Pattern.compile(str.toString(), Pattern.MULTILINE|Pattern.CASE_INSENSITIVE);
-                if (contain.equals(Containment.CONTAINS_NONE_OF))
-                    matcher = (s) -> !p.matcher(s).find();
-                else
-                    matcher = (s) -> p.matcher(s).find();
-                break;
-            case CONTAINS_NOT_ALL_OF:
-                matcher = createSimpleMatcher(text).negate();
-                break;
-            case CONTAINS_NOT_EXACTLY:
-                matcher = (s) -> !s.equalsIgnoreCase(text);
-                break;
-            case CONTAINS_EXACTLY:
-                matcher = (s) -> s.equalsIgnoreCase(text);
-                break;
-            default:
-                matcher = (s) -> false;
-                break;
             }
-            return function().apply(c).stream().anyMatch(matcher);
         }
+        return scan(inventory, candidates);
     }
 
     @Override
@@ -77,6 +77,12 @@ public class TypeLineFilter extends FilterLeaf<List<Set<String>>>
         return !line.isEmpty() && contain.test(c.allTypes().stream().flatMap(Set::stream).map(String::toLowerCase).collect(Collectors.toSet()), Arrays.asList(line.toLowerCase().split("\\s")));
     }
 
+    @Override
+    public double cost()
+    {
+        return 3;
+    }
+
     @Override
     protected void serializeFields(JsonObject fields)
     {
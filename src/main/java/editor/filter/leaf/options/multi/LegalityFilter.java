@@ -1,6 +1,7 @@
 package editor.filter.leaf.options.multi;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Objects;
 
@@ -8,6 +9,7 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 
+import editor.collection.Inventory;
 import editor.database.attributes.CardAttribute;
 import editor.database.attributes.Legality;
 import editor.database.card.Card;
@@ -90,6 +92,18 @@ public class LegalityFilter extends MultiOptionsFilter<String>
             return true;
     }
 
+    /**
+     * {@inheritDoc}
+     * If restrictions are being checked, only the cards legal in the selected formats
+     * are tested for them.
+     */
+    @Override
+    public BitSet select(Inventory inventory, BitSet candidates)
+    {
+        BitSet legal = super.select(inventory, candidates);
+        return restricted ? scan(inventory, legal) : legal;
+    }
+
     @Override
     protected JsonElement convertToJson(String item)
     {
@@ -1,13 +1,16 @@
 package editor.filter.leaf.options.multi;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Objects;
 import java.util.function.Function;
 
+import editor.collection.Inventory;
 import editor.database.attributes.CardAttribute;
 import editor.database.card.Card;
 import editor.filter.leaf.FilterLeaf;
 import editor.filter.leaf.options.OptionsFilter;
+import editor.util.Containment;
 
 /**
  * This class represents a filter that groups cards by a characteristic that
@@ -64,4 +67,33 @@ public abstract class MultiOptionsFilter<T> extends OptionsFilter<T>
     {
         return contain.test(function.apply(c), selected);
     }
+
+    /**
+     * {@inheritDoc}
+     * Cards are looked up by their values in the inventory's attribute index, unless
+     * the containment compares the exact values of each card.
+     */
+    @Override
+    public BitSet select(Inventory inventory, BitSet candidates)
+    {
+        if (!stable())
+            return scan(inventory, candidates);
+
+        var index = inventory.attributeIndex();
+        BitSet selection;
+        if (contain == Containment.CONTAINS_ANY_OF || contain == Containment.CONTAINS_NOT_ALL_OF)
+        {
+            selection = selected.isEmpty() ? (BitSet)candidates.clone() : index.withAny(type(), function, selected);
+            if (contain == Containment.CONTAINS_NOT_ALL_OF)
+                selection.andNot(index.withAll(type(), function, selected));
+        }
+        else if (contain == Containment.CONTAINS_NONE_OF)
+            selection = index.withNone(type(), function, selected);
+        else if (contain == Containment.CONTAINS_ALL_OF)
+            selection = index.withAll(type(), function, selected);
+        else
+            return scan(inventory, candidates);
+        selection.and(candidates);
+        return selection;
+    }
 }
@@ -24,6 +24,16 @@ public class TagsFilter extends MultiOptionsFilter<String>
         super(CardAttribute.TAGS, (c) -> Card.tags.getOrDefault(c.multiverseid().get(0), new HashSet<String>()));
     }
 
+    /**
+     * {@inheritDoc}
+     * Tags can be changed at any time, so they aren't indexed.
+     */
+    @Override
+    public boolean stable()
+    {
+        return false;
+    }
+
     @Override
     protected String convertFromString(String str)
     {
@@ -1,8 +1,11 @@
 package editor.filter.leaf.options.single;
 
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.List;
 import java.util.function.Function;
 
+import editor.collection.Inventory;
 import editor.database.attributes.CardAttribute;
 import editor.database.card.Card;
 import editor.filter.leaf.options.OptionsFilter;
@@ -37,4 +40,28 @@ public abstract class SingletonOptionsFilter<T> extends OptionsFilter<T>
     {
         return contain.test(selected, Collections.singletonList(function().apply(c)));
     }
+
+    /**
+     * {@inheritDoc}
+     * Cards are looked up by their values in the inventory's attribute index.  Since each
+     * card only has one value, every containment reduces to whether or not it's selected.
+     */
+    @Override
+    public BitSet select(Inventory inventory, BitSet candidates)
+    {
+        if (!stable())
+            return scan(inventory, candidates);
+
+        var index = inventory.attributeIndex();
+        Function<Card, List<T>> values = (c) -> Collections.singletonList(function().apply(c));
+        BitSet selection = switch (contain) {
+            case CONTAINS_ANY_OF, CONTAINS_ALL_OF -> index.withAny(type(), values, selected);
+            case CONTAINS_NONE_OF -> index.withNone(type(), values, selected);
+            case CONTAINS_NOT_ALL_OF -> new BitSet();
+            case CONTAINS_EXACTLY -> selected.size() == 1 ? index.withAny(type(), values, selected) : new BitSet();
+            case CONTAINS_NOT_EXACTLY -> selected.size() == 1 ? index.withNone(type(), values, selected) : (BitSet)candidates.clone();
+        };
+        selection.and(candidates);
+        return selection;
+    }
 }
\ No newline at end of file
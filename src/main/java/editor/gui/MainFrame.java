@@ -48,6 +48,9 @@ import java.util.Properties;
 import java.util.Queue;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -85,6 +88,7 @@ import javax.swing.KeyStroke;
 import javax.swing.ListSelectionModel;
 import javax.swing.ScrollPaneConstants;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
 import javax.swing.WindowConstants;
@@ -112,6 +116,7 @@ import editor.collection.deck.CategorySpec;
 import editor.collection.deck.Deck;
 import editor.collection.export.CardListFormat;
 import editor.collection.export.DelimitedCardListFormat;
+import editor.collection.export.LineError;
 import editor.collection.export.TextCardListFormat;
 import editor.database.attributes.CardAttribute;
 import editor.database.attributes.Expansion;
@@ -146,6 +151,7 @@ import editor.gui.inventory.InventoryDownloader;
 import editor.gui.inventory.InventoryLoader;
 import editor.gui.settings.Settings;
 import editor.gui.settings.SettingsDialog;
+import editor.serialization.BinaryDeckFormat;
 import editor.serialization.AttributeAdapter;
 import editor.serialization.CardAdapter;
 import editor.serialization.CategoryAdapter;
@@ -182,12 +188,19 @@ public class MainFrame extends JFrame
      */
     private class InventoryTableCellRenderer extends CardTableCellRenderer
     {
+        /** Font the styled fonts were derived from. */
+        private Font base;
+        /** Fonts derived from {@link #base}, indexed by style. */
+        private Font[] styled;
+
         /**
          * Create a new CardTableCellRenderer.
          */
         public InventoryTableCellRenderer()
         {
             super();
+            base = null;
+            styled = new Font[(Font.BOLD | Font.ITALIC) + 1];
         }
 
         /**
@@ -207,15 +220,25 @@ public class MainFrame extends JFrame
         {
             Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
             Card card = inventory.get(table.convertRowIndexToModel(row));
-            var contained = selectedFrame.map((f) -> f.hasCard(card)).orElse(new ArrayList<>());
-            boolean main = contained.contains(EditorFrame.MAIN_DECK);
-            boolean extra = contained.stream().anyMatch((i) -> i > 0);
-            if (main && extra)
-                ComponentUtils.changeFontRecursive(c, c.getFont().deriveFont(Font.BOLD | Font.ITALIC));
-            else if (main)
-                ComponentUtils.changeFontRecursive(c, c.getFont().deriveFont(Font.BOLD));
-            else if (extra)
-                ComponentUtils.changeFontRecursive(c, c.getFont().deriveFont(Font.ITALIC));
+            int style = Font.PLAIN;
+            if (selectedFrame.isPresent())
+            {
+                if (selectedFrame.get().hasCard(EditorFrame.MAIN_DECK, card))
+                    style |= Font.BOLD;
+                if (selectedFrame.get().hasCardInExtras(card))
+                    style |= Font.ITALIC;
+            }
+            if (style != Font.PLAIN)
+            {
+                if (c.getFont() != base)
+                {
+                    base = c.getFont();
+                    Arrays.fill(styled, null);
+                }
+                if (styled[style] == null)
+                    styled[style] = base.deriveFont(style);
+                ComponentUtils.changeFontRecursive(c, styled[style]);
+            }
             return c;
         }
     }
@@ -228,6 +251,11 @@ public class MainFrame extends JFrame
      * Maximum height that the advanced filter editor panel can attain before scrolling.
      */
     public static final int MAX_FILTER_HEIGHT = 300;
+    /**
+     * Time to wait after the user stops typing in the quick-filter bar before filtering
+     * the inventory, in milliseconds.
+     */
+    public static final int FILTER_DELAY = 150;
     /**
      * Serializer for saving and loading external information.
      */
@@ -334,6 +362,10 @@ public class MainFrame extends JFrame
      * File chooser for opening and saving.
      */
     private OverwriteFileChooser fileChooser;
+    /**
+     * Filter in the file chooser for decks saved in compact binary format.
+     */
+    private FileNameExtensionFilter compactFilter;
     /**
      * URL pointing to the site to get the latest version of the
      * inventory from.
@@ -393,6 +425,23 @@ public class MainFrame extends JFrame
      * if there is no selection.
      */
     private Optional<CardList> selectedList;
+    /**
+     * Executor for filtering the inventory in the background.
+     */
+    private ExecutorService filterExecutor;
+    /**
+     * Inventory filtering that is in progress, or <code>null</code> if there isn't any.
+     */
+    private Future<?> pendingFilter;
+    /**
+     * Number of times the inventory filter has been changed, which identifies the newest
+     * filtering so older ones that finish after it aren't shown.
+     */
+    private long filterRequests;
+    /**
+     * Timer that filters the inventory once the user stops typing in the quick-filter bar.
+     */
+    private Timer filterTimer;
 
     /**
      * Create a new MainFrame.
@@ -408,6 +457,13 @@ public class MainFrame extends JFrame
         editors = new ArrayList<>();
         recentItems = new LinkedList<>();
         recents = new HashMap<>();
+        filterExecutor = Executors.newSingleThreadExecutor((r) -> {
+            Thread thread = new Thread(r, "Inventory Filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pendingFilter = null;
+        filterRequests = 0;
 
         // Initialize properties to their default values, then load the current values
         // from the properties file
@@ -729,6 +785,19 @@ public class MainFrame extends JFrame
                     try
                     {
                         manager.importList(format, importChooser.getSelectedFile(), this);
+                        var failed = manager.importErrors().stream().filter((l) -> !l.resolved()).toArray(LineError[]::new);
+                        if (failed.length > 0)
+                        {
+                            long uncertain = manager.importErrors().size() - failed.length;
+                            JPanel errorPanel = new JPanel(new BorderLayout(0, 5));
+                            errorPanel.add(new JLabel("No cards could be found for these lines of " + importChooser.getSelectedFile().getName() + ", so each started a new extra list:"), BorderLayout.NORTH);
+                            JList<LineError> errorList = new JList<>(failed);
+                            errorList.setVisibleRowCount(Math.min(failed.length, 15));
+                            errorPanel.add(new JScrollPane(errorList), BorderLayout.CENTER);
+                            if (uncertain > 0)
+                                errorPanel.add(new JLabel("The printings of " + uncertain + " other card(s) couldn't be determined, so the first match was used."), BorderLayout.SOUTH);
+                            JOptionPane.showMessageDialog(this, errorPanel, "Import Warnings", JOptionPane.WARNING_MESSAGE);
+                        }
                     }
                     catch (DeckLoadException x)
                     {
@@ -1488,18 +1557,26 @@ public class MainFrame extends JFrame
             editTagsItem.setEnabled(!getSelectedCards().isEmpty());
         }));
 
+        // Filter the inventory by the text in the quick-filter bar once the user stops typing
+        filterTimer = new Timer(FILTER_DELAY, (e) -> updateFilter(TextFilter.createQuickFilter(CardAttribute.NAME, nameFilterField.getText().toLowerCase())));
+        filterTimer.setRepeats(false);
+        nameFilterField.getDocument().addDocumentListener(new DocumentChangeListener()
+        {
+            @Override
+            public void update(DocumentEvent e)
+            {
+                filterTimer.restart();
+            }
+        });
+
         // Action to be taken when the user presses the Enter key after entering text into the quick-filter
         // bar
-        nameFilterField.addActionListener((e) -> {
-            inventory.updateFilter(TextFilter.createQuickFilter(CardAttribute.NAME, nameFilterField.getText().toLowerCase()));
-            inventoryModel.fireTableDataChanged();
-        });
+        nameFilterField.addActionListener((e) -> updateFilter(TextFilter.createQuickFilter(CardAttribute.NAME, nameFilterField.getText().toLowerCase())));
 
         // Action to be taken when the clear button is pressed (reset the filter)
         clearButton.addActionListener((e) -> {
             nameFilterField.setText("");
-            inventory.updateFilter(CardAttribute.createFilter(CardAttribute.ANY));
-            inventoryModel.fireTableDataChanged();
+            updateFilter(CardAttribute.createFilter(CardAttribute.ANY));
         });
 
         // Action to be taken when the advanced filter button is pressed (show the advanced filter
@@ -1529,8 +1606,7 @@ public class MainFrame extends JFrame
             if (JOptionPane.showConfirmDialog(this, panelPane, "Advanced Filter", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) == JOptionPane.OK_OPTION)
             {
                 nameFilterField.setText("");
-                inventory.updateFilter(panel.filter());
-                inventoryModel.fireTableDataChanged();
+                updateFilter(panel.filter());
             }
         });
 
@@ -1550,6 +1626,7 @@ public class MainFrame extends JFrame
         fileChooser = new OverwriteFileChooser(SettingsDialog.settings().cwd());
         fileChooser.setMultiSelectionEnabled(false);
         fileChooser.addChoosableFileFilter(new FileNameExtensionFilter("Deck (*.json)", "json"));
+        fileChooser.addChoosableFileFilter(compactFilter = new FileNameExtensionFilter("Compact deck (*." + BinaryDeckFormat.EXTENSION + ')', BinaryDeckFormat.EXTENSION));
         fileChooser.setAcceptAllFileFilterUsed(true);
 
         // Handle what happens when the window tries to close and when it opens.
@@ -1818,6 +1895,35 @@ public class MainFrame extends JFrame
         return selectedList.filter((l) -> l == inventory).isPresent();
     }
 
+    /**
+     * Filter the inventory in the background, cancelling any filtering that hasn't finished
+     * yet.  The inventory table is only updated once the cards for the newest filter are
+     * found, so the interface stays responsive no matter how long that takes.
+     *
+     * @param filter new filter for the inventory
+     */
+    public void updateFilter(Filter filter)
+    {
+        filterTimer.stop();
+        if (pendingFilter != null)
+            pendingFilter.cancel(true);
+
+        final long request = ++filterRequests;
+        final Inventory target = inventory;
+        final Filter f = filter.copy();
+        pendingFilter = filterExecutor.submit(() -> {
+            List<Card> filtered = target.filtered(f);
+            SwingUtilities.invokeLater(() -> {
+                if (request == filterRequests && target == inventory)
+                {
+                    pendingFilter = null;
+                    inventory.updateFilter(f, filtered);
+                    inventoryModel.fireTableDataChanged();
+                }
+            });
+        });
+    }
+
     /**
      * Load the inventory and initialize the inventory table.
      *
@@ -1959,6 +2065,8 @@ public class MainFrame extends JFrame
 
     /**
      * Save the specified editor frame to a file chosen from a {@link JFileChooser}.
+     * The deck is saved in compact format if the compact deck filter is selected,
+     * which is determined by the file's extension.
      *
      * @param frame frame to save.
      */
@@ -1968,6 +2076,8 @@ public class MainFrame extends JFrame
         {
         case JFileChooser.APPROVE_OPTION:
             File f = fileChooser.getSelectedFile();
+            if (fileChooser.getFileFilter() == compactFilter && !f.getName().endsWith('.' + BinaryDeckFormat.EXTENSION))
+                f = new File(f.getPath() + '.' + BinaryDeckFormat.EXTENSION);
             frame.save(f);
             updateRecents(f);
             break;
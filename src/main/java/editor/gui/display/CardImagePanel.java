@@ -5,34 +5,27 @@ import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.geom.AffineTransform;
 import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLConnection;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -44,7 +37,7 @@ import javax.swing.JPanel;
 import javax.swing.JProgressBar;
 import javax.swing.JTextPane;
 import javax.swing.SwingUtilities;
-import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.UIManager;
 import javax.swing.text.Style;
 import javax.swing.text.StyleConstants;
@@ -82,174 +75,123 @@ public class CardImagePanel extends JPanel
     private static final Collection<JLabel> progressLabels = new HashSet<JLabel>();
 
     /**
-     * This class represents a request by a CardImagePanel to download the image(s)
-     * of a Card.
+     * Global pool of threads downloading card images.
      */
-    private static class DownloadRequest
-    {
-        /** CardImagePanel that needs to download a card. */
-        public final CardImagePanel source;
-        /** Card that needs to be downloaded. */
-        public final Card card;
+    private static final ImageDownloader downloader = new ImageDownloader(4, 2, CardImagePanel::finishDownload, CardImagePanel::updateProgress);
 
-        /**
-         * Create a new DownloadRequest.
-         * 
-         * @param panel CardImagePanel making the request
-         * @param c Card whose images need to be downloaded
-         */
-        public DownloadRequest(CardImagePanel panel, Card c)
+    /**
+     * Time, in milliseconds, to wait after a CardImagePanel is resized before scaling its image
+     * to the new size.
+     */
+    private static final int RESCALE_DELAY = 100;
+    /**
+     * Scaled images shared by all CardImagePanels.
+     */
+    private static final ImageScaler scaler = new ImageScaler(8);
+    /**
+     * Decoded images shared by all CardImagePanels.
+     */
+    private static final ImageCache images = new ImageCache(CardImagePanel::decode, Math.min(Runtime.getRuntime().maxMemory()/8, 256L << 20), 2);
+
+    /**
+     * Decode an image from the disk cache, marking it as recently used.
+     *
+     * @param file file containing the image
+     * @return the decoded image, or null if it couldn't be decoded.
+     */
+    private static BufferedImage decode(File file)
+    {
+        try
         {
-            source = panel;
-            card = c;
+            BufferedImage image = ImageIO.read(file);
+            if (image != null)
+                scans().touch(file.toPath());
+            return image;
+        }
+        catch (IOException e)
+        {
+            return null;
         }
     }
 
     /**
-     * This class represents a worker that downloads a card image for its parent CardImagePanel
-     * from Gatherer.
+     * Start decoding the images of a card that have already been downloaded, so they can
+     * be shown right away if the card is displayed soon.
+     *
+     * @param card card whose images should be decoded
      */
-    private static class ImageDownloadWorker extends SwingWorker<Void, Integer>
+    static void prefetch(Card card)
     {
-        /**
-         * Queue of cards whose images still need to be downloaded.
-         */
-        private BlockingQueue<DownloadRequest> toDownload;
-        private int size;
-
-        /**
-         * Create a new ImageDownloadWorker.
-         */
-        public ImageDownloadWorker()
-        {
-            super();
-            toDownload = new LinkedBlockingQueue<>();
-            size = 0;
-        }
+        for (File file : getFiles(card))
+            if (file.exists())
+                images.load(file);
+    }
 
-        /**
-         * Create a request to download the image(s) of a card to display on the given
-         * CardImagePanel.
-         */
-        public void downloadCard(CardImagePanel source, Card card)
+    /**
+     * Once a card's images have been downloaded, create the flipped image of a flip card
+     * and add the images to the cache.
+     *
+     * @param card card whose images were downloaded
+     * @param files files containing the card's images
+     */
+    private static void finishDownload(Card card, List<File> files)
+    {
+        if (card.layout() == CardLayout.FLIP && files.get(0).exists())
         {
             try
             {
-                toDownload.put(new DownloadRequest(source, card));
+                BufferedImage original = ImageIO.read(files.get(0));
+                BufferedImage flipped = new BufferedImage(original.getWidth(), original.getHeight(), original.getType());
+                AffineTransformOp op = new AffineTransformOp(AffineTransform.getRotateInstance(Math.PI, flipped.getWidth()/2, flipped.getHeight()/2), AffineTransformOp.TYPE_BILINEAR);
+                ImageIO.write(op.filter(original, flipped), "jpg", files.get(1));
             }
-            catch (InterruptedException e)
+            catch (Exception e)
             {
-                e.printStackTrace();
+                System.out.println(e);
             }
         }
+        scans().add(files.stream().map(File::toPath).filter(Files::exists).collect(Collectors.toList()));
+    }
 
-        @Override
-        protected Void doInBackground() throws Exception
-        {
-            while (true)
-            {
-                DownloadRequest req = toDownload.take();
-                var files = getFiles(req.card);
-                var urls = getURLs(req.card);
-                for (int i = 0; i < urls.size(); i++)
-                {
-                    final int f = i;
-                    if (!files.get(f).exists())
-                    {
-                        urls.get(f).ifPresent((site) -> {
-                            files.get(f).getParentFile().mkdirs();
-                            try
-                            {
-                                URLConnection connection = site.openConnection();
-                                size = connection.getContentLength();
-                                int downloaded = 0;
-                                SwingUtilities.invokeLater(() -> {
-                                    for (var bar : progressBars)
-                                    {
-                                        bar.setEnabled(true);
-                                        bar.setMaximum(size);
-                                    }
-                                    for (var label : progressLabels)
-                                        label.setText("Downloading image of " + req.card.unifiedName() + " ...");
-                                });
-                                try (BufferedInputStream in = new BufferedInputStream(connection.getInputStream()))
-                                {
-                                    try (BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(files.get(f))))
-                                    {
-                                        byte[] data = new byte[1024];
-                                        int x;
-                                        while ((x = in.read(data)) > 0)
-                                        {
-                                            out.write(data, 0, x);
-                                            publish(downloaded += x);
-                                        }
-                                    }
-                                }
-                            }
-                            catch (Exception e)
-                            {
-                                System.err.println("Error downloading " + files.get(f) + ": " + e.getMessage());
-                            }
-                        });
-                    }
-                }
-                if (req.card.layout() == CardLayout.FLIP && files.get(0).exists())
-                {
-                    try
-                    {
-                        BufferedImage original = ImageIO.read(files.get(0));
-                        BufferedImage flipped = new BufferedImage(original.getWidth(), original.getHeight(), original.getType());
-                        AffineTransformOp op = new AffineTransformOp(AffineTransform.getRotateInstance(Math.PI, flipped.getWidth()/2, flipped.getHeight()/2), AffineTransformOp.TYPE_BILINEAR);
-                        ImageIO.write(op.filter(original, flipped), "jpg", files.get(1));
-                    }
-                    catch (Exception e)
-                    {
-                        System.out.println(e);
-                    }
-                }
-                if (SettingsDialog.settings().inventory().imageLimitEnable())
-                {
-                    int count = 0;
-                    do
-                    {
-                        var images = Paths.get(SettingsDialog.settings().inventory().scans()).toFile().listFiles();
-                        count = images.length;
-                        if (count > SettingsDialog.settings().inventory().imageLimit())
-                            Arrays.stream(images).min(Comparator.comparingLong(File::lastModified)).ifPresent(File::delete);
-                    } while (count > SettingsDialog.settings().inventory().imageLimit());
-                }
-                SwingUtilities.invokeLater(() -> {
-                    if (req.source.card == req.card)
-                        req.source.loadImages();
-                });
-                publish(0);
-                if (toDownload.isEmpty())
-                {
-                    SwingUtilities.invokeLater(() -> {
-                        for (var bar : progressBars)
-                            bar.setEnabled(false);
-                        for (var label : progressLabels)
-                            label.setText("");
-                    });
-                }
-            }
-        }
+    /**
+     * Cache of images on disk for the current settings.
+     */
+    private static ScanCache scans = null;
 
-        @Override
-        protected void process(List<Integer> chunks)
-        {
-            for (var bar : progressBars)
-                bar.setValue(chunks.get(chunks.size() - 1));
-        }
+    /**
+     * Get the cache of images on disk, replacing it if the settings for it have changed.
+     *
+     * @return the cache of images on disk.
+     */
+    private static synchronized ScanCache scans()
+    {
+        var settings = SettingsDialog.settings().inventory();
+        Path root = Path.of(settings.scans());
+        int limit = settings.imageLimitEnable() ? settings.imageLimit() : Integer.MAX_VALUE;
+        if (scans == null || !scans.root().equals(root) || !scans.hasLimits(limit, Long.MAX_VALUE))
+            scans = new ScanCache(root, limit, Long.MAX_VALUE);
+        return scans;
     }
 
     /**
-     * Global ImageDownloadWorker to manage downloading cards images.
+     * Show the progress of image downloads on all of the status bars.
+     *
+     * @param card card whose image is being downloaded, or null if none are
+     * @param downloaded number of bytes that have been downloaded
+     * @param size total number of bytes to download
      */
-    private static ImageDownloadWorker downloader = new ImageDownloadWorker();
-    static
+    private static void updateProgress(Card card, long downloaded, long size)
     {
-        downloader.execute();
+        SwingUtilities.invokeLater(() -> {
+            for (var bar : progressBars)
+            {
+                bar.setEnabled(card != null);
+                bar.setMaximum((int)Math.min(size, Integer.MAX_VALUE));
+                bar.setValue((int)Math.min(downloaded, Integer.MAX_VALUE));
+            }
+            for (var label : progressLabels)
+                label.setText(card == null ? "" : "Downloading image of " + card.unifiedName() + " ...");
+        });
     }
 
     /**
@@ -263,9 +205,9 @@ public class CardImagePanel extends JPanel
         switch (SettingsDialog.settings().inventory().imageSource())
         {
         case "Scryfall":
-            return IntStream.range(0, c.imageNames().size()).mapToObj((i) -> Paths.get(SettingsDialog.settings().inventory().scans(), c.scryfallid().get(i) + ";" + i + ".jpg").toFile()).collect(Collectors.toList());
+            return IntStream.range(0, c.imageNames().size()).mapToObj((i) -> scans().resolve(c.scryfallid().get(i) + ";" + i + ".jpg").toFile()).collect(Collectors.toList());
         case "Gatherer":
-            return IntStream.range(0, c.multiverseid().size()).mapToObj((i) -> Paths.get(SettingsDialog.settings().inventory().scans(), c.multiverseid().get(i) + ";" + i + ".jpg").toFile()).collect(Collectors.toList());
+            return IntStream.range(0, c.multiverseid().size()).mapToObj((i) -> scans().resolve(c.multiverseid().get(i) + ";" + i + ".jpg").toFile()).collect(Collectors.toList());
         default:
             return Collections.emptyList();
         }
@@ -387,6 +329,15 @@ public class CardImagePanel extends JPanel
      * Face of the card to display.
      */
     private int face;
+    /**
+     * Image of the card scaled to the size it was last drawn at.
+     */
+    private BufferedImage scaled;
+    /**
+     * Timer that scales the image once this CardImagePanel has stopped changing size for a
+     * moment, so it isn't scaled again for every step of a resize.
+     */
+    private Timer scaleTimer;
 
     /**
      * Create a new CardImagePanel displaying nothing.
@@ -396,6 +347,9 @@ public class CardImagePanel extends JPanel
         super(null);
         card = null;
         image = null;
+        scaled = null;
+        scaleTimer = new Timer(RESCALE_DELAY, (e) -> rescale());
+        scaleTimer.setRepeats(false);
         faceImages = new ArrayList<>();
         face = 0;
         addMouseListener(new FaceListener());
@@ -433,34 +387,75 @@ public class CardImagePanel extends JPanel
 
     /**
      * Once the images have been downloaded, try to load them.  If they don't exist,
-     * create a rectangle with Oracle text instead.
+     * create a rectangle with Oracle text instead.  Images that have already been decoded
+     * are shown right away; others are decoded in the background and shown when they're
+     * ready, if the card is still being displayed.
      */
-    private synchronized void loadImages()
+    private void loadImages()
     {
         if (card != null)
         {
-            faceImages.clear();
-            for (File file : getFiles(card))
-            {
-                BufferedImage img = null;
-                try
-                {
-                    if (file.exists())
-                        img = ImageIO.read(file);
-                }
-                catch (IOException e)
-                {}
-                finally
+            final Card loading = card;
+            var faces = getFiles(card).stream()
+                .map((f) -> f.exists() ? images.load(f).exceptionally((e) -> null) : CompletableFuture.<BufferedImage>completedFuture(null))
+                .collect(Collectors.toList());
+            Runnable show = () -> {
+                if (card == loading)
                 {
-                    faceImages.add(img);
+                    faceImages.clear();
+                    for (var face : faces)
+                        faceImages.add(face.join());
+                    if (getParent() != null)
+                    {
+                        getParent().revalidate();
+                        repaint();
+                    }
                 }
-            }
-            if (getParent() != null)
+            };
+            if (faces.stream().allMatch(CompletableFuture::isDone))
+                show.run();
+            else
+                CompletableFuture.allOf(faces.toArray(CompletableFuture[]::new)).thenRun(() -> SwingUtilities.invokeLater(show));
+        }
+    }
+
+    /**
+     * Get the bounds of the image within this CardImagePanel, which is the largest rectangle
+     * with the image's aspect ratio that fits in it, centered.
+     *
+     * @return the rectangle to draw the image in.
+     */
+    private Rectangle imageBounds()
+    {
+        double aspectRatio = (double)image.getWidth()/(double)image.getHeight();
+        int width = (int)(getHeight()*aspectRatio);
+        int height = getHeight();
+        if (width > getWidth())
+        {
+            width = getWidth();
+            height = (int)(width/aspectRatio);
+        }
+        return new Rectangle((getWidth() - width)/2, (getHeight() - height)/2, width, height);
+    }
+
+    /**
+     * Start scaling the image to the size it's displayed at, and redraw it when that's done.
+     */
+    private void rescale()
+    {
+        if (image != null && getWidth() > 0 && getHeight() > 0)
+        {
+            final BufferedImage source = image;
+            Rectangle bounds = imageBounds();
+            if (bounds.width > 0 && bounds.height > 0 && (bounds.width != source.getWidth() || bounds.height != source.getHeight()))
             {
-                SwingUtilities.invokeLater(() -> {
-                    getParent().revalidate();
-                    repaint();
-                });
+                scaler.request(source, bounds.width, bounds.height, getGraphicsConfiguration()).thenAccept((s) -> SwingUtilities.invokeLater(() -> {
+                    if (image == source)
+                    {
+                        scaled = s;
+                        repaint();
+                    }
+                }));
             }
         }
     }
@@ -468,7 +463,8 @@ public class CardImagePanel extends JPanel
     /**
      * {@inheritDoc}
      * The panel will basically just be the image generated in {@link CardImagePanel#setCard(Card)}
-     * scaled to fit the container.
+     * scaled to fit the container.  The image is scaled in the background; until that's done,
+     * the last scaled version of it is stretched to fit instead.
      */
     @Override
     protected void paintComponent(Graphics g)
@@ -477,16 +473,20 @@ public class CardImagePanel extends JPanel
         if (image != null)
         {
             Graphics2D g2 = (Graphics2D)g;
-            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-            double aspectRatio = (double)image.getWidth()/(double)image.getHeight();
-            int width = (int)(getHeight()*aspectRatio);
-            int height = getHeight();
-            if (width > getWidth())
+            Rectangle bounds = imageBounds();
+            BufferedImage fitted = bounds.width == image.getWidth() && bounds.height == image.getHeight() ? image : scaler.get(image, bounds.width, bounds.height);
+            if (fitted != null)
             {
-                width = getWidth();
-                height = (int)(width/aspectRatio);
+                scaled = fitted;
+                g2.drawImage(fitted, bounds.x, bounds.y, null);
+            }
+            else
+            {
+                g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g2.drawImage(scaled == null ? image : scaled, bounds.x, bounds.y, bounds.width, bounds.height, null);
+                if (!scaleTimer.isRunning())
+                    scaleTimer.restart();
             }
-            g2.drawImage(image, (getWidth() - width)/2, (getHeight() - height)/2, width, height, null);
 
             if (card.imageNames().size() > 1)
             {
@@ -504,47 +504,44 @@ public class CardImagePanel extends JPanel
     @Override
     public void setBounds(int x, int y, int width, int height)
     {
+        boolean resized = width != getWidth() || height != getHeight();
         super.setBounds(x, y, width, height);
+        BufferedImage previous = image;
         if (card == null || height == 0 || width == 0)
             image = null;
-        else
+        else if (faceImages.size() <= face || faceImages.get(face) == null)
         {
-            int h = 0, w = 0;
-            if (faceImages.size() <= face || faceImages.get(face) == null)
-            {
-                h = height;
-                w = (int)(h*ASPECT_RATIO);
-            }
-            else
-            {
-                h = faceImages.get(face).getHeight();
-                w = faceImages.get(face).getWidth();
-            }
-            image = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            int h = height;
+            int faceWidth = (int)(h*ASPECT_RATIO);
+            image = new BufferedImage(faceWidth, h, BufferedImage.TYPE_INT_ARGB);
             Graphics g = image.createGraphics();
-            if (faceImages.size() <= face || faceImages.get(face) == null)
-            {
-                int faceWidth = (int)(h*ASPECT_RATIO);
-
-                JTextPane missingCardPane = new JTextPane();
-                StyledDocument document = (StyledDocument)missingCardPane.getDocument();
-                Style textStyle = document.addStyle("text", null);
-                StyleConstants.setFontFamily(textStyle, UIManager.getFont("Label.font").getFamily());
-                StyleConstants.setFontSize(textStyle, ComponentUtils.TEXT_SIZE);
-                Style reminderStyle = document.addStyle("reminder", textStyle);
-                StyleConstants.setItalic(reminderStyle, true);
-                card.formatDocument(document, false, face);
-                missingCardPane.setSize(new Dimension(faceWidth - 4, h - 4));
-
-                BufferedImage img = new BufferedImage(faceWidth, h, BufferedImage.TYPE_INT_ARGB);
-                missingCardPane.paint(img.getGraphics());
-                g.drawImage(img, 2, 2, null);
-                g.setColor(Color.BLACK);
-                g.drawRect(0, 0, faceWidth - 1, h - 1);
-            }
-            else
-                g.drawImage(faceImages.get(face), 0, 0, null);
+
+            JTextPane missingCardPane = new JTextPane();
+            StyledDocument document = (StyledDocument)missingCardPane.getDocument();
+            Style textStyle = document.addStyle("text", null);
+            StyleConstants.setFontFamily(textStyle, UIManager.getFont("Label.font").getFamily());
+            StyleConstants.setFontSize(textStyle, ComponentUtils.TEXT_SIZE);
+            Style reminderStyle = document.addStyle("reminder", textStyle);
+            StyleConstants.setItalic(reminderStyle, true);
+            card.formatDocument(document, false, face);
+            missingCardPane.setSize(new Dimension(faceWidth - 4, h - 4));
+
+            BufferedImage img = new BufferedImage(faceWidth, h, BufferedImage.TYPE_INT_ARGB);
+            missingCardPane.paint(img.getGraphics());
+            g.drawImage(img, 2, 2, null);
+            g.setColor(Color.BLACK);
+            g.drawRect(0, 0, faceWidth - 1, h - 1);
+            g.dispose();
         }
+        else
+            image = faceImages.get(face);
+        if (image != previous)
+        {
+            scaled = null;
+            rescale();
+        }
+        else if (resized)
+            scaleTimer.restart();
     }
 
     /**
@@ -563,9 +560,18 @@ public class CardImagePanel extends JPanel
             {
                 Files.createDirectories(Path.of(SettingsDialog.settings().inventory().scans()));
                 if (getFiles(card).stream().map(File::toPath).allMatch(Files::exists))
+                {
+                    downloader.cancel(this);
                     loadImages();
+                }
                 else
-                    downloader.downloadCard(this, card);
+                {
+                    final Card requested = card;
+                    downloader.request(this, card, getURLs(card), getFiles(card), () -> SwingUtilities.invokeLater(() -> {
+                        if (card == requested)
+                            loadImages();
+                    }));
+                }
             }
             catch (IOException e)
             {}
@@ -579,6 +585,7 @@ public class CardImagePanel extends JPanel
      */
     public void clearCard()
     {
+        downloader.cancel(this);
         card = null;
         face = 0;
         faceImages.clear();
@@ -18,6 +18,8 @@ import javax.swing.table.TableModel;
 import javax.swing.table.TableRowSorter;
 
 import editor.database.attributes.CardAttribute;
+import editor.database.attributes.CombatStat;
+import editor.database.attributes.Loyalty;
 import editor.database.attributes.ManaCost;
 import editor.database.attributes.OptionalAttribute;
 import editor.database.card.Card;
@@ -69,11 +71,57 @@ public class CardTable extends JTable
         {
             super(m);
             model = m;
+            if (m instanceof CardTableModel cards)
+            {
+                // Sort using the keys the model has already computed rather than the values it displays
+                setModelWrapper(new ModelWrapper<TableModel, Integer>()
+                {
+                    @Override
+                    public TableModel getModel()
+                    {
+                        return cards;
+                    }
+
+                    @Override
+                    public int getColumnCount()
+                    {
+                        return cards.getColumnCount();
+                    }
+
+                    @Override
+                    public int getRowCount()
+                    {
+                        return cards.getRowCount();
+                    }
+
+                    @Override
+                    public Object getValueAt(int row, int column)
+                    {
+                        return cards.getSortKey(row, column);
+                    }
+
+                    @Override
+                    public String getStringValueAt(int row, int column)
+                    {
+                        if (getStringConverter() != null)
+                            return getStringConverter().toString(cards, row, column);
+                        Object value = cards.getValueAt(row, column);
+                        return value == null ? "" : value.toString();
+                    }
+
+                    @Override
+                    public Integer getIdentifier(int row)
+                    {
+                        return row;
+                    }
+                });
+            }
         }
 
         /**
          * {@inheritDoc}
-         * Empty cells are always sorted last.
+         * Empty cells are always sorted last.  Columns of a {@link CardTableModel} are compared
+         * using its {@link CardTableModel#getSortKey sort keys}.
          */
         @Override
         public Comparator<?> getComparator(int column)
@@ -84,18 +132,9 @@ public class CardTable extends JTable
                 CardAttribute attribute = m.getColumnData(column);
                 // Have to special-case P/T/L so they are always last if missing
                 return switch (attribute) {
-                    case POWER, TOUGHNESS, LOYALTY -> (a, b) -> {
-                        OptionalAttribute first = CollectionUtils.convertToList(a, OptionalAttribute.class).stream().filter(OptionalAttribute::exists).findFirst().orElse(OptionalAttribute.empty());
-                        OptionalAttribute second = CollectionUtils.convertToList(b, OptionalAttribute.class).stream().filter(OptionalAttribute::exists).findFirst().orElse(OptionalAttribute.empty());
-                        if (!first.exists() && !second.exists())
-                            return 0;
-                        else if (!first.exists())
-                            return ascending ? 1 : -1;
-                        else if (!second.exists())
-                            return ascending ? -1 : 1;
-                        else
-                            return attribute.compare(a, b);
-                    };
+                    case MANA_COST -> (a, b) -> ((ManaCost)a).compareTo((ManaCost)b);
+                    case POWER, TOUGHNESS -> missingLast(ascending, (a, b) -> ((CombatStat)a).compareTo((CombatStat)b));
+                    case LOYALTY -> missingLast(ascending, (a, b) -> ((Loyalty)a).compareTo((Loyalty)b));
                     default -> attribute;
                 };
             }
@@ -103,6 +142,30 @@ public class CardTable extends JTable
                 return super.getComparator(column);
         }
 
+        /**
+         * Create a comparator for {@link OptionalAttribute}s that puts ones that don't exist
+         * last, regardless of sort order.
+         *
+         * @param ascending whether or not the column is being sorted in ascending order
+         * @param comparator comparator for attributes that both exist
+         * @return a comparator that sorts missing attributes last.
+         */
+        private static Comparator<Object> missingLast(boolean ascending, Comparator<Object> comparator)
+        {
+            return (a, b) -> {
+                boolean first = ((OptionalAttribute)a).exists();
+                boolean second = ((OptionalAttribute)b).exists();
+                if (!first && !second)
+                    return 0;
+                else if (!first)
+                    return ascending ? 1 : -1;
+                else if (!second)
+                    return ascending ? -1 : 1;
+                else
+                    return comparator.compare(a, b);
+            };
+        }
+
         /**
          * {@inheritDoc}
          * Don't convert to a string if the data type is part of {@link #NO_STRING}.
@@ -216,6 +279,17 @@ public class CardTable extends JTable
         for (CardAttribute type : CardAttribute.displayableValues())
             setDefaultRenderer(type.dataType(), renderer);
         setRowSorter(new EmptyTableRowSorter(getModel()));
+
+        // Decode the images of the cards next to the selected one so they can be shown right away
+        getSelectionModel().addListSelectionListener((e) -> {
+            if (!e.getValueIsAdjusting() && getModel() instanceof CardTableModel m)
+            {
+                int lead = getSelectionModel().getLeadSelectionIndex();
+                for (int row : new int[] { lead + 1, lead - 1 })
+                    if (lead >= 0 && row >= 0 && row < getRowCount())
+                        CardImagePanel.prefetch(m.getCardAt(convertRowIndexToModel(row)));
+            }
+        });
     }
 
     /**
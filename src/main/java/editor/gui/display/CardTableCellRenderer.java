@@ -2,8 +2,9 @@ package editor.gui.display;
 
 import java.awt.Color;
 import java.awt.Component;
-import java.awt.FlowLayout;
+import java.awt.FontMetrics;
 import java.awt.Graphics;
+import java.awt.Insets;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -13,10 +14,8 @@ import java.util.Map;
 import java.util.StringJoiner;
 
 import javax.swing.BorderFactory;
-import javax.swing.BoxLayout;
 import javax.swing.Icon;
-import javax.swing.JLabel;
-import javax.swing.JPanel;
+import javax.swing.JComponent;
 import javax.swing.JTable;
 import javax.swing.UIManager;
 import javax.swing.border.Border;
@@ -34,14 +33,160 @@ import editor.util.CollectionUtils;
 import editor.util.UnicodeSymbols;
 
 /**
- * This class represents a cell renderer for a {@link CardTable}.
+ * This class represents a cell renderer for a {@link CardTable}.  Cells that aren't
+ * plain text are drawn by a small set of components that are reused for every cell,
+ * so rendering doesn't create any new components.
  *
  * @author Alec Roelke
  */
 public class CardTableCellRenderer extends DefaultTableCellRenderer
 {
-    /** Internal cache of icon sets to speed up resizing. */
+    /** Height of symbol icons drawn in cells. */
+    private static final int ICON_SIZE = 13;
+    /** Border for cells that don't have focus. */
+    private static final Border NO_FOCUS_BORDER = BorderFactory.createEmptyBorder(1, 1, 1, 1);
+
+    /**
+     * Component that draws rows of icons in a cell, with text separating each row.
+     * It is used for mana costs, where each face of a card gets a row, and for colors.
+     *
+     * @author Alec Roelke
+     */
+    private static class IconCell extends JComponent
+    {
+        /** Icons to draw, grouped into rows. */
+        private Icon[][] icons;
+
+        /**
+         * Create a new, empty IconCell.
+         */
+        public IconCell()
+        {
+            icons = new Icon[0][];
+            setOpaque(true);
+        }
+
+        /**
+         * Set the icons to draw.
+         *
+         * @param i icons to draw, grouped into rows
+         */
+        public void setIcons(Icon[][] i)
+        {
+            icons = i;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g)
+        {
+            if (isOpaque())
+            {
+                g.setColor(getBackground());
+                g.fillRect(0, 0, getWidth(), getHeight());
+            }
+            Insets insets = getInsets();
+            FontMetrics metrics = g.getFontMetrics(getFont());
+            int x = insets.left;
+            boolean first = true;
+            for (Icon[] row : icons)
+            {
+                if (row.length > 0)
+                {
+                    if (!first)
+                    {
+                        g.setColor(getForeground());
+                        g.setFont(getFont());
+                        g.drawString(Card.FACE_SEPARATOR, x, (getHeight() - metrics.getHeight())/2 + metrics.getAscent());
+                        x += metrics.stringWidth(Card.FACE_SEPARATOR);
+                    }
+                    for (Icon icon : row)
+                    {
+                        icon.paintIcon(this, g, x, (getHeight() - icon.getIconHeight())/2);
+                        x += icon.getIconWidth();
+                    }
+                    first = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Component that draws a colored square for each category a card belongs to.  Its
+     * tool tip lists the names of the categories, and is only created when it is shown.
+     *
+     * @author Alec Roelke
+     */
+    private static class CategoryCell extends JComponent
+    {
+        /** Categories to draw, sorted by name. */
+        private final List<CategorySpec> categories;
+
+        /**
+         * Create a new, empty CategoryCell.
+         */
+        public CategoryCell()
+        {
+            categories = new ArrayList<>();
+            setOpaque(true);
+        }
+
+        /**
+         * Set the categories to draw.
+         *
+         * @param value set of categories to draw
+         */
+        public void setCategories(Object value)
+        {
+            categories.clear();
+            if (value instanceof Iterable<?> specs)
+                for (Object spec : specs)
+                    if (spec instanceof CategorySpec category)
+                        categories.add(category);
+            categories.sort(Comparator.comparing(CategorySpec::getName));
+        }
+
+        @Override
+        protected void paintComponent(Graphics g)
+        {
+            if (isOpaque())
+            {
+                g.setColor(getBackground());
+                g.fillRect(0, 0, getWidth(), getHeight());
+            }
+            int s = getHeight();
+            for (int i = 0; i < categories.size(); i++)
+            {
+                int x = i * (s + 1) + 1;
+                int y = 1;
+                g.setColor(categories.get(i).getColor());
+                g.fillRect(x, y, s - 3, s - 3);
+                g.setColor(Color.BLACK);
+                g.drawRect(x, y, s - 3, s - 3);
+            }
+        }
+
+        @Override
+        public String getToolTipText()
+        {
+            if (categories.isEmpty())
+                return null;
+            StringBuilder tooltip = new StringBuilder();
+            tooltip.append("<html>Categories:<br>");
+            for (CategorySpec category : categories)
+                tooltip.append(UnicodeSymbols.BULLET).append(" ").append(category.getName()).append("<br>");
+            tooltip.append("</html>");
+            return tooltip.toString();
+        }
+    }
+
+    /** Internal cache of icon sets for mana costs to speed up resizing. */
     private Map<List<ManaCost>, Icon[][]> cache;
+    /** Internal cache of icon sets for lists of colors. */
+    private Map<List<ManaType>, Icon[][]> colorCache;
+    /** Component used to draw mana costs and colors. */
+    private IconCell icons;
+    /** Component used to draw categories. */
+    private CategoryCell categories;
 
     /**
      * Create a new CardTableCellRenderer.
@@ -50,6 +195,9 @@ public class CardTableCellRenderer extends DefaultTableCellRenderer
     {
         super();
         cache = new HashMap<>();
+        colorCache = new HashMap<>();
+        icons = new IconCell();
+        categories = new CategoryCell();
     }
 
     /**
@@ -69,90 +217,61 @@ public class CardTableCellRenderer extends DefaultTableCellRenderer
         Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         if (table.getModel() instanceof CardTableModel m)
         {
-            JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
-            Border border = BorderFactory.createEmptyBorder(1, 1, 1, 1);
-            StringJoiner join = new StringJoiner(Card.FACE_SEPARATOR);
+            JComponent cell;
             switch (m.getColumnData(column))
             {
-            case MANA_COST:
-                panel.setLayout(new BoxLayout(panel, BoxLayout.X_AXIS));
-                var icons = cache.computeIfAbsent(
-                    CollectionUtils.convertToList(value, ManaCost.class),
-                    (cost) -> cost.stream().map((l) -> l.stream().map((s) -> s.getIcon(13)).toArray(Icon[]::new)).toArray(Icon[][]::new)
-                );
-                border = BorderFactory.createEmptyBorder(0, 1, icons.length == 1 ? -1 : 0, 0);
-                for (int i = 0; i < icons.length; i++)
+            case MANA_COST -> {
+                Icon[][] costIcons = cache.get(value);
+                if (costIcons == null)
                 {
-                    if (icons[i].length > 0)
-                    {
-                        if (i > 0)
-                            panel.add(new JLabel(Card.FACE_SEPARATOR));
-                        for (int j = 0; j < icons[i].length; j++)
-                            panel.add(new JLabel(icons[i][j]));
-                    }
+                    var costs = CollectionUtils.convertToList(value, ManaCost.class);
+                    costIcons = costs.stream().map((l) -> l.stream().map((s) -> s.getIcon(ICON_SIZE)).toArray(Icon[]::new)).toArray(Icon[][]::new);
+                    cache.put(costs, costIcons);
                 }
-                break;
-            case MANA_VALUE:
-                double manaValue = value == null ? 0 : (Double)value;
-                panel.add(new JLabel(manaValue == (int)manaValue ? Integer.toString((int)manaValue) : Double.toString(manaValue)));
-                break;
-            case COLORS:
-            case COLOR_IDENTITY:
-                panel.setLayout(new BoxLayout(panel, BoxLayout.X_AXIS));
-                for (ManaType color : CollectionUtils.convertToList(value, ManaType.class))
-                    panel.add(new JLabel(ColorSymbol.SYMBOLS.get(color).getIcon(13)));
-                break;
-            case POWER:
-            case TOUGHNESS:
-                panel.add(new JLabel(CollectionUtils.join(join, CollectionUtils.convertToList(value, CombatStat.class))));
-                break;
-            case LOYALTY:
-                panel.add(new JLabel(CollectionUtils.join(join, CollectionUtils.convertToList(value, Loyalty.class))));
-                break;
-            case CATEGORIES:
-                var categories = new ArrayList<>(CollectionUtils.convertToSet(value, CategorySpec.class));
-                categories.sort(Comparator.comparing(CategorySpec::getName));
-                panel = new JPanel()
-                {
-                    @Override
-                    public void paintComponent(Graphics g)
-                    {
-                        super.paintComponent(g);
-                        int s = getHeight();
-                        for (int i = 0; i < categories.size(); i++)
-                        {
-                            int x = i * (s + 1) + 1;
-                            int y = 1;
-                            g.setColor(categories.get(i).getColor());
-                            g.fillRect(x, y, s - 3, s - 3);
-                            g.setColor(Color.BLACK);
-                            g.drawRect(x, y, s - 3, s - 3);
-                        }
-                    }
-                };
-                if (!categories.isEmpty())
+                icons.setIcons(costIcons);
+                cell = icons;
+            }
+            case COLORS, COLOR_IDENTITY -> {
+                Icon[][] colorIcons = colorCache.get(value);
+                if (colorIcons == null)
                 {
-                    StringBuilder tooltip = new StringBuilder();
-                    tooltip.append("<html>Categories:<br>");
-                    for (CategorySpec category : categories)
-                        tooltip.append(UnicodeSymbols.BULLET).append(" ").append(category.getName()).append("<br>");
-                    tooltip.append("</html>");
-                    panel.setToolTipText(tooltip.toString());
+                    var colors = CollectionUtils.convertToList(value, ManaType.class);
+                    colorIcons = new Icon[][] { colors.stream().map((t) -> ColorSymbol.SYMBOLS.get(t).getIcon(ICON_SIZE)).toArray(Icon[]::new) };
+                    colorCache.put(colors, colorIcons);
                 }
-                break;
-            case DATE_ADDED:
-                panel.add(new JLabel(Deck.DATE_FORMATTER.format((LocalDate)value)));
-                break;
-            default:
+                icons.setIcons(colorIcons);
+                cell = icons;
+            }
+            case CATEGORIES -> {
+                categories.setCategories(value);
+                cell = categories;
+            }
+            case MANA_VALUE -> {
+                double manaValue = value == null ? 0 : (Double)value;
+                setText(manaValue == (int)manaValue ? Integer.toString((int)manaValue) : Double.toString(manaValue));
+                return c;
+            }
+            case POWER, TOUGHNESS -> {
+                setText(CollectionUtils.join(new StringJoiner(Card.FACE_SEPARATOR), CollectionUtils.convertToList(value, CombatStat.class)));
+                return c;
+            }
+            case LOYALTY -> {
+                setText(CollectionUtils.join(new StringJoiner(Card.FACE_SEPARATOR), CollectionUtils.convertToList(value, Loyalty.class)));
+                return c;
+            }
+            case DATE_ADDED -> {
+                setText(Deck.DATE_FORMATTER.format((LocalDate)value));
+                return c;
+            }
+            default -> {
                 return c;
             }
-            if (hasFocus)
-                panel.setBorder(UIManager.getBorder("Table.focusCellHighlightBorder"));
-            else
-                panel.setBorder(border);
-            panel.setForeground(c.getForeground());
-            panel.setBackground(c.getBackground());
-            c = panel;
+            }
+            cell.setBorder(hasFocus ? UIManager.getBorder("Table.focusCellHighlightBorder") : NO_FOCUS_BORDER);
+            cell.setFont(c.getFont());
+            cell.setForeground(c.getForeground());
+            cell.setBackground(c.getBackground());
+            c = cell;
         }
         return c;
     }
@@ -1,22 +1,60 @@
 package editor.gui.display;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.AbstractTableModel;
 
 import editor.collection.CardList;
 import editor.database.attributes.CardAttribute;
+import editor.database.attributes.CombatStat;
+import editor.database.attributes.Loyalty;
+import editor.database.attributes.ManaCost;
+import editor.database.card.Card;
 import editor.gui.editor.EditorFrame;
 import editor.gui.editor.IncludeExcludePanel;
+import editor.util.CollectionUtils;
 
 /**
  * This class represents the model for displaying the contents of a decklist.  A decklist
  * category looks like a decklist, so this is used to display those as well.
  *
+ * Values of attributes that only depend on a card are cached by row the first time they
+ * are needed, along with the keys used to sort them, so rendering and sorting don't have
+ * to compute them again.  The caches are cleared whenever the model fires an event.
+ *
  * @author Alec Roelke
  */
 public class CardTableModel extends AbstractTableModel
 {
+    /**
+     * Attributes whose values can change without the card in a row changing, so they
+     * aren't cached.
+     */
+    private static final Set<CardAttribute> UNCACHED = EnumSet.of(CardAttribute.COUNT, CardAttribute.CATEGORIES, CardAttribute.DATE_ADDED, CardAttribute.TAGS);
+
+    /**
+     * Get the key to use for sorting a value of an attribute.  For most attributes this is
+     * the value itself, but attributes whose comparisons only look at part of their values
+     * use that part.
+     *
+     * @param attribute attribute the value belongs to
+     * @param value value of the attribute
+     * @return the key for sorting the value.
+     * @see CardTable
+     */
+    private static Object sortKey(CardAttribute attribute, Object value)
+    {
+        return switch (attribute) {
+            case MANA_COST -> CollectionUtils.convertToList(value, ManaCost.class).get(0);
+            case POWER, TOUGHNESS -> CollectionUtils.convertToList(value, CombatStat.class).stream().filter(CombatStat::exists).findFirst().orElse(CombatStat.NO_COMBAT);
+            case LOYALTY -> CollectionUtils.convertToList(value, Loyalty.class).stream().filter(Loyalty::exists).findFirst().orElse(Loyalty.NO_LOYALTY);
+            default -> value;
+        };
+    }
+
     /**
      * List of card characteristics to display in the table.
      */
@@ -29,6 +67,20 @@ public class CardTableModel extends AbstractTableModel
      * List of cards the table displays.
      */
     private CardList list;
+    /**
+     * Card that was in each row when values for it were cached, or null if nothing has
+     * been cached for the row.
+     */
+    private Card[] rows;
+    /**
+     * Cached values of each column by row.  A column's array is only created once a value
+     * from it is needed.
+     */
+    private Object[][] values;
+    /**
+     * Cached sort keys of each column by row.
+     */
+    private Object[][] keys;
 
     /**
      * Create a new CardTableModel.
@@ -91,10 +143,81 @@ public class CardTableModel extends AbstractTableModel
         return list.size();
     }
 
+    /**
+     * Get the card displayed in a row.
+     *
+     * @param rowIndex row to look at, in model coordinates
+     * @return the card in the row.
+     */
+    public Card getCardAt(int rowIndex)
+    {
+        return list.get(rowIndex);
+    }
+
     @Override
     public Object getValueAt(int rowIndex, int columnIndex)
     {
-        return list.getEntry(rowIndex).get(characteristics.get(columnIndex));
+        CardAttribute attribute = characteristics.get(columnIndex);
+        if (UNCACHED.contains(attribute))
+            return list.getEntry(rowIndex).get(attribute);
+        Object[] column = cached(false, rowIndex, columnIndex);
+        if (column[rowIndex] == null)
+            column[rowIndex] = list.getEntry(rowIndex).get(attribute);
+        return column[rowIndex];
+    }
+
+    /**
+     * Get the key for sorting the value in a cell.  Keys are computed once and then reused
+     * until the model changes.
+     *
+     * @param rowIndex row of the cell
+     * @param columnIndex column of the cell
+     * @return the key for sorting the cell.
+     */
+    public Object getSortKey(int rowIndex, int columnIndex)
+    {
+        CardAttribute attribute = characteristics.get(columnIndex);
+        if (UNCACHED.contains(attribute))
+            return sortKey(attribute, getValueAt(rowIndex, columnIndex));
+        Object[] column = cached(true, rowIndex, columnIndex);
+        if (column[rowIndex] == null)
+            column[rowIndex] = sortKey(attribute, getValueAt(rowIndex, columnIndex));
+        return column[rowIndex];
+    }
+
+    /**
+     * Get the array of cached values or sort keys of a column, making sure the cached
+     * values in the given row are for the card that is in it now.
+     *
+     * @param sort whether to get sort keys rather than values
+     * @param row row that is about to be looked up
+     * @param column column to get
+     * @return the array of cached values or sort keys for the column.
+     */
+    private Object[] cached(boolean sort, int row, int column)
+    {
+        if (rows == null || rows.length != list.size() || values.length != characteristics.size())
+        {
+            rows = new Card[list.size()];
+            values = new Object[characteristics.size()][];
+            keys = new Object[characteristics.size()][];
+        }
+        Card card = list.get(row);
+        if (rows[row] != card)
+        {
+            rows[row] = card;
+            for (int i = 0; i < characteristics.size(); i++)
+            {
+                if (values[i] != null)
+                    values[i][row] = null;
+                if (keys[i] != null)
+                    keys[i][row] = null;
+            }
+        }
+        Object[][] cache = sort ? keys : values;
+        if (cache[column] == null)
+            cache[column] = new Object[rows.length];
+        return cache[column];
     }
 
     @Override
@@ -122,6 +245,21 @@ public class CardTableModel extends AbstractTableModel
     public void setList(CardList d)
     {
         list = d;
+        rows = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Cached values and sort keys are cleared first, since any of them could be different
+     * after the change.
+     */
+    @Override
+    public void fireTableChanged(TableModelEvent e)
+    {
+        rows = null;
+        values = null;
+        keys = null;
+        super.fireTableChanged(e);
     }
 
     @Override
@@ -0,0 +1,120 @@
+package editor.gui.display;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Cache of decoded card images in memory, shared by all {@link CardImagePanel}s.  Images
+ * are decoded by background threads, and only one thread decodes an image even if it's
+ * requested several times before it's done.  The cache holds decoded images up to a limited
+ * number of bytes, and when it's over that limit it discards the ones that were used least
+ * recently.
+ *
+ * @author Alec Roelke
+ */
+class ImageCache
+{
+    /** Function used to decode images from files. */
+    private final Function<File, BufferedImage> decoder;
+    /** Maximum number of bytes of decoded images to keep. */
+    private final long maxBytes;
+    /** Threads decoding images. */
+    private final ExecutorService executor;
+    /** Decoded images by file, in order from least to most recently used. */
+    private final LinkedHashMap<File, BufferedImage> images;
+    /** Images being decoded. */
+    private final Map<File, CompletableFuture<BufferedImage>> decoding;
+    /** Number of bytes of decoded images being kept. */
+    private long bytes;
+
+    /**
+     * Create a new ImageCache.
+     *
+     * @param d function that decodes an image from a file, returning null if it can't
+     * @param size maximum number of bytes of decoded images to keep
+     * @param threads number of threads to decode images with
+     */
+    public ImageCache(Function<File, BufferedImage> d, long size, int threads)
+    {
+        decoder = d;
+        maxBytes = size;
+        executor = Executors.newFixedThreadPool(threads, (r) -> {
+            Thread thread = new Thread(r, "Image Decoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        images = new LinkedHashMap<>(16, 0.75f, true);
+        decoding = new HashMap<>();
+        bytes = 0;
+    }
+
+    /**
+     * Estimate the number of bytes of memory an image takes up.
+     *
+     * @param image image to measure
+     * @return the size of the image in bytes.
+     */
+    private static long size(BufferedImage image)
+    {
+        var buffer = image.getRaster().getDataBuffer();
+        return (long)buffer.getSize()*buffer.getNumBanks()*Math.max(1, DataBuffer.getDataTypeSize(buffer.getDataType())/8);
+    }
+
+    /**
+     * Get a decoded image, decoding it in the background if it isn't in the cache.
+     *
+     * @param file file containing the image
+     * @return a future that completes with the decoded image, or with null if it can't
+     * be decoded.  If the image is already in the cache, it is already complete.
+     */
+    public synchronized CompletableFuture<BufferedImage> load(File file)
+    {
+        BufferedImage image = images.get(file);
+        if (image != null)
+            return CompletableFuture.completedFuture(image);
+        return decoding.computeIfAbsent(file, (f) -> CompletableFuture.supplyAsync(() -> decode(f), executor));
+    }
+
+    /**
+     * Decode an image and add it to the cache, removing the least recently used images
+     * if there are too many.
+     *
+     * @param file file containing the image
+     * @return the decoded image, or null if it couldn't be decoded.
+     */
+    private BufferedImage decode(File file)
+    {
+        BufferedImage image = null;
+        try
+        {
+            image = decoder.apply(file);
+        }
+        finally
+        {
+            synchronized (this)
+            {
+                decoding.remove(file);
+                if (image != null)
+                {
+                    BufferedImage previous = images.put(file, image);
+                    bytes += size(image) - (previous == null ? 0 : size(previous));
+                    for (Iterator<BufferedImage> i = images.values().iterator(); i.hasNext() && bytes > maxBytes && images.size() > 1;)
+                    {
+                        bytes -= size(i.next());
+                        i.remove();
+                    }
+                }
+            }
+        }
+        return image;
+    }
+}
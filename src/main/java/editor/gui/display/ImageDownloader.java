@@ -0,0 +1,340 @@
+package editor.gui.display;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+import editor.database.card.Card;
+
+/**
+ * Pool of threads that download the images of cards.  The most recent request is always
+ * served first, so the card being looked at now doesn't wait behind cards that have already
+ * been passed by, and only a few images are downloaded from the same host at once.
+ * Requests for a card that is already being downloaded or waiting to be downloaded are
+ * combined with it, and requests that nothing is waiting for anymore are dropped before
+ * they start.
+ *
+ * Each request belongs to an owner, which can only wait for one card at a time.  Requesting
+ * a different card or {@link #cancel(Object) canceling} means the owner no longer needs
+ * the first one.
+ *
+ * @author Alec Roelke
+ */
+class ImageDownloader
+{
+    /** Size of the buffer used for reading images. */
+    private static final int BUFFER_SIZE = 64*1024;
+    /** Time, in milliseconds, to wait to connect to a host or to receive data from it. */
+    private static final int TIMEOUT = 30000;
+
+    /**
+     * Listener for the progress of the pool's downloads.
+     *
+     * @author Alec Roelke
+     */
+    @FunctionalInterface
+    public interface ProgressListener
+    {
+        /**
+         * Report progress made downloading images.  This is not called on the event dispatch
+         * thread.
+         *
+         * @param card card whose image was just being downloaded, or null if nothing is
+         * being downloaded or waiting to be downloaded anymore
+         * @param downloaded number of bytes downloaded by all of the downloads in progress
+         * @param size total size of the downloads in progress, as far as it is known
+         */
+        void progress(Card card, long downloaded, long size);
+    }
+
+    /**
+     * Request to download the images of a card.
+     *
+     * @author Alec Roelke
+     */
+    private static class Request
+    {
+        /** Card whose images should be downloaded. */
+        public final Card card;
+        /** Where to download each image from, if it can be downloaded. */
+        public final List<Optional<URL>> urls;
+        /** Files to save each image to. */
+        public final List<File> files;
+        /** Host the images are downloaded from. */
+        public final String host;
+        /** Owners waiting for the images and what to do for each one when they are done. */
+        public final Map<Object, Runnable> waiting;
+        /** Order the request was last made in; larger numbers are more recent. */
+        public long order;
+
+        /**
+         * Create a new Request.
+         *
+         * @param c card whose images should be downloaded
+         * @param u where to download each image from
+         * @param f files to save each image to
+         */
+        public Request(Card c, List<Optional<URL>> u, List<File> f)
+        {
+            card = c;
+            urls = u;
+            files = f;
+            host = u.stream().flatMap(Optional::stream).findFirst().map(URL::getHost).orElse("");
+            waiting = new LinkedHashMap<>();
+            order = 0;
+        }
+    }
+
+    /** Maximum number of downloads from the same host at once. */
+    private final int perHost;
+    /** Action to take on each card's images once they have been downloaded, before notifying owners. */
+    private final BiConsumer<Card, List<File>> postprocess;
+    /** Listener for download progress. */
+    private final ProgressListener listener;
+    /** Requests that haven't started yet. */
+    private final Map<Card, Request> pending;
+    /** Requests that are being downloaded. */
+    private final Map<Card, Request> running;
+    /** Request each owner is waiting for. */
+    private final Map<Object, Request> owners;
+    /** Number of downloads in progress from each host. */
+    private final Map<String, Integer> connections;
+    /** Number of requests that have been made, used to order them. */
+    private long requests;
+    /** Number of bytes downloaded by all of the downloads in progress. */
+    private long downloaded;
+    /** Total size of all of the downloads in progress. */
+    private long size;
+
+    /**
+     * Create a new ImageDownloader and start its threads.
+     *
+     * @param threads number of images to download at once
+     * @param hostLimit number of images to download at once from the same host
+     * @param p action to take on each card's images after downloading them, on the thread
+     * that downloaded them
+     * @param l listener for download progress
+     */
+    public ImageDownloader(int threads, int hostLimit, BiConsumer<Card, List<File>> p, ProgressListener l)
+    {
+        perHost = hostLimit;
+        postprocess = p;
+        listener = l;
+        pending = new HashMap<>();
+        running = new HashMap<>();
+        owners = new HashMap<>();
+        connections = new HashMap<>();
+        requests = 0;
+        downloaded = 0;
+        size = 0;
+        for (int i = 0; i < threads; i++)
+        {
+            Thread worker = new Thread(this::work, "image-download-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    /**
+     * Request the images of a card.  If the card is already requested, the existing request
+     * is moved to the front of the queue instead of making a new one.
+     *
+     * @param owner owner of the request, which stops waiting for any card it requested before
+     * @param card card whose images should be downloaded
+     * @param urls where to download each image from, if it can be downloaded
+     * @param files files to save each image to; images whose files already exist aren't downloaded
+     * @param done action to perform once the images have been downloaded, on the thread
+     * that downloaded them
+     */
+    public synchronized void request(Object owner, Card card, List<Optional<URL>> urls, List<File> files, Runnable done)
+    {
+        drop(owner);
+        Request request = running.get(card);
+        if (request == null)
+            request = pending.computeIfAbsent(card, (c) -> new Request(c, urls, files));
+        request.waiting.put(owner, done);
+        request.order = ++requests;
+        owners.put(owner, request);
+        notifyAll();
+    }
+
+    /**
+     * Stop waiting for the card an owner requested.  If nothing else is waiting for it and
+     * it hasn't started downloading, it won't be.
+     *
+     * @param owner owner whose request should be canceled
+     */
+    public synchronized void cancel(Object owner)
+    {
+        drop(owner);
+    }
+
+    /**
+     * Remove an owner from the request it's waiting for, and remove that request if it hasn't
+     * started and nothing else is waiting for it.  Must be called while holding this
+     * ImageDownloader's lock.
+     *
+     * @param owner owner to remove
+     */
+    private void drop(Object owner)
+    {
+        Request request = owners.remove(owner);
+        if (request != null)
+        {
+            request.waiting.remove(owner);
+            if (request.waiting.isEmpty())
+                pending.remove(request.card, request);
+        }
+    }
+
+    /**
+     * Find the most recent request that hasn't started and whose host can take another
+     * connection.  Must be called while holding this ImageDownloader's lock.
+     *
+     * @return the next request to download, or null if none can be downloaded now.
+     */
+    private Request next()
+    {
+        Request next = null;
+        for (Request request : pending.values())
+            if (connections.getOrDefault(request.host, 0) < perHost && (next == null || request.order > next.order))
+                next = request;
+        return next;
+    }
+
+    /**
+     * Download requested images until interrupted.
+     */
+    private void work()
+    {
+        try
+        {
+            while (true)
+            {
+                Request request;
+                synchronized (this)
+                {
+                    while ((request = next()) == null)
+                        wait();
+                    pending.remove(request.card);
+                    running.put(request.card, request);
+                    connections.merge(request.host, 1, Integer::sum);
+                }
+
+                List<Runnable> callbacks = new ArrayList<>();
+                boolean idle;
+                try
+                {
+                    for (int i = 0; i < request.urls.size(); i++)
+                    {
+                        File file = request.files.get(i);
+                        if (request.urls.get(i).isPresent() && !file.exists())
+                        {
+                            try
+                            {
+                                download(request.card, request.urls.get(i).get(), file);
+                            }
+                            catch (IOException e)
+                            {
+                                System.err.println("Error downloading " + file + ": " + e.getMessage());
+                            }
+                        }
+                    }
+                    postprocess.accept(request.card, request.files);
+                }
+                finally
+                {
+                    synchronized (this)
+                    {
+                        running.remove(request.card);
+                        connections.computeIfPresent(request.host, (h, n) -> n > 1 ? n - 1 : null);
+                        for (var entry : request.waiting.entrySet())
+                        {
+                            owners.remove(entry.getKey(), request);
+                            callbacks.add(entry.getValue());
+                        }
+                        idle = pending.isEmpty() && running.isEmpty();
+                        notifyAll();
+                    }
+                }
+                for (Runnable callback : callbacks)
+                    callback.run();
+                if (idle)
+                    listener.progress(null, 0, 0);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Download an image to a file.  The image is written to a temporary file next to the
+     * target first, so an image that fails to download doesn't leave a partial file in
+     * its place.
+     *
+     * @param card card the image belongs to
+     * @param url where to download the image from
+     * @param file file to save the image to
+     * @throws IOException if the image can't be downloaded or saved
+     */
+    private void download(Card card, URL url, File file) throws IOException
+    {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null)
+            Files.createDirectories(parent.toPath());
+        var part = file.toPath().resolveSibling(file.getName() + ScanCache.PARTIAL);
+        URLConnection connection = url.openConnection();
+        connection.setConnectTimeout(TIMEOUT);
+        connection.setReadTimeout(TIMEOUT);
+        long length = Math.max(connection.getContentLengthLong(), 0);
+        long read = 0;
+        synchronized (this)
+        {
+            size += length;
+        }
+        try
+        {
+            try (InputStream in = connection.getInputStream(); OutputStream out = Files.newOutputStream(part))
+            {
+                byte[] data = new byte[BUFFER_SIZE];
+                int n;
+                while ((n = in.read(data)) > 0)
+                {
+                    out.write(data, 0, n);
+                    read += n;
+                    long d, s;
+                    synchronized (this)
+                    {
+                        d = downloaded += n;
+                        s = size;
+                    }
+                    listener.progress(card, d, s);
+                }
+            }
+            Files.move(part, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        finally
+        {
+            Files.deleteIfExists(part);
+            synchronized (this)
+            {
+                downloaded -= read;
+                size -= length;
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package editor.gui.display;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Scales images to the sizes they are displayed at in the background, and keeps the most
+ * recently used scaled images so they can be drawn without scaling them again.  Images are
+ * shrunk by halving their size until they are close to their target size, which looks much
+ * better than shrinking them all at once, and the final image is compatible with the screen
+ * it's drawn on so it can be copied to it quickly.
+ *
+ * @author Alec Roelke
+ */
+class ImageScaler
+{
+    /**
+     * Key identifying a scaled image.  Source images are compared by identity.
+     *
+     * @param source image that was scaled
+     * @param width width of the scaled image
+     * @param height height of the scaled image
+     *
+     * @author Alec Roelke
+     */
+    private record Scaled(BufferedImage source, int width, int height) {}
+
+    /**
+     * Scale an image to a new size.
+     *
+     * @param source image to scale
+     * @param width width to scale to
+     * @param height height to scale to
+     * @param config configuration of the screen the image will be drawn on, or null if
+     * it isn't known
+     * @return a new image containing the source image scaled to the new size.
+     */
+    public static BufferedImage scale(BufferedImage source, int width, int height, GraphicsConfiguration config)
+    {
+        BufferedImage current = source;
+        int w = source.getWidth();
+        int h = source.getHeight();
+        do
+        {
+            w = w > width ? Math.max(width, w/2) : width;
+            h = h > height ? Math.max(height, h/2) : height;
+            boolean last = w == width && h == height;
+            BufferedImage next;
+            if (last && config != null)
+                next = config.createCompatibleImage(w, h, source.getColorModel().getTransparency());
+            else
+                next = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, last ? RenderingHints.VALUE_INTERPOLATION_BICUBIC : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, w, h, null);
+            g.dispose();
+            current = next;
+        } while (w != width || h != height);
+        return current;
+    }
+
+    /** Maximum number of scaled images to keep. */
+    private final int maxImages;
+    /** Thread scaling images. */
+    private final ExecutorService executor;
+    /** Scaled images, in order from least to most recently used. */
+    private final Map<Scaled, BufferedImage> images;
+    /** Images being scaled. */
+    private final Map<Scaled, CompletableFuture<BufferedImage>> scaling;
+
+    /**
+     * Create a new ImageScaler.
+     *
+     * @param max maximum number of scaled images to keep
+     */
+    public ImageScaler(int max)
+    {
+        maxImages = max;
+        executor = Executors.newSingleThreadExecutor((r) -> {
+            Thread thread = new Thread(r, "Image Scaler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        images = new LinkedHashMap<>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Scaled, BufferedImage> eldest)
+            {
+                return size() > maxImages;
+            }
+        };
+        scaling = new HashMap<>();
+    }
+
+    /**
+     * Get an image that has already been scaled to a size.
+     *
+     * @param source image that was scaled
+     * @param width width of the scaled image
+     * @param height height of the scaled image
+     * @return the scaled image, or null if it hasn't been scaled to that size.
+     */
+    public synchronized BufferedImage get(BufferedImage source, int width, int height)
+    {
+        return images.get(new Scaled(source, width, height));
+    }
+
+    /**
+     * Scale an image in the background, unless it has already been scaled to the same size
+     * or is already being scaled to it.
+     *
+     * @param source image to scale
+     * @param width width to scale to
+     * @param height height to scale to
+     * @param config configuration of the screen the image will be drawn on, or null if
+     * it isn't known
+     * @return a future that completes with the scaled image.
+     */
+    public synchronized CompletableFuture<BufferedImage> request(BufferedImage source, int width, int height, GraphicsConfiguration config)
+    {
+        var key = new Scaled(source, width, height);
+        BufferedImage image = images.get(key);
+        if (image != null)
+            return CompletableFuture.completedFuture(image);
+        return scaling.computeIfAbsent(key, (k) -> CompletableFuture.supplyAsync(() -> {
+            BufferedImage scaled = null;
+            try
+            {
+                scaled = scale(source, width, height, config);
+            }
+            finally
+            {
+                synchronized (this)
+                {
+                    scaling.remove(k);
+                    if (scaled != null)
+                        images.put(k, scaled);
+                }
+            }
+            return scaled;
+        }, executor));
+    }
+}
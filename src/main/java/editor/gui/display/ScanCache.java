@@ -0,0 +1,289 @@
+package editor.gui.display;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cache of downloaded card images on disk.  Images are spread across subdirectories of
+ * the cache's directory so no directory gets too large, and the cache keeps an index of the
+ * images in it ordered by when they were last used so it can delete the least recently used
+ * ones without looking through the directory.  When it has more images than it's allowed,
+ * or they take up too much space, it deletes enough of them at once to get some distance
+ * below its limits so it doesn't have to delete one every time an image is added.
+ *
+ * The index is built in the background from the files' attributes when the cache is
+ * created, and changes made to the cache before it's done are applied to it afterward so
+ * nothing has to wait for it.  Images saved directly in the cache's directory, as they were
+ * before it was split into subdirectories, are moved into the right subdirectories then, and
+ * until they are they can still be found where they were.
+ *
+ * @author Alec Roelke
+ */
+class ScanCache
+{
+    /** Fraction of its limits a cache is reduced to when it goes over one of them. */
+    private static final double LOW_WATER = 0.9;
+    /** Suffix of files that are still being downloaded, which don't belong in the index. */
+    public static final String PARTIAL = ".part";
+
+    /**
+     * Get the name of the subdirectory an image belongs in.
+     *
+     * @param name name of the image file
+     * @return the name of the subdirectory to store it in.
+     */
+    private static String shard(String name)
+    {
+        return String.format("%02x", name.hashCode() & 0xFF);
+    }
+
+    /** Directory containing the cached images. */
+    private final Path root;
+    /** Maximum number of images to keep. */
+    private final int maxCount;
+    /** Maximum total size of images to keep, in bytes. */
+    private final long maxBytes;
+    /** Size of each image in the cache by file name, in order from least to most recently used. */
+    private final CompletableFuture<LinkedHashMap<String, Long>> index;
+    /** Total size of the images in the cache. */
+    private long bytes;
+
+    /**
+     * Create a new ScanCache and start building its index.
+     *
+     * @param r directory to store images in
+     * @param count maximum number of images to keep
+     * @param size maximum total size, in bytes, of the images to keep
+     */
+    public ScanCache(Path r, int count, long size)
+    {
+        root = r;
+        maxCount = count;
+        maxBytes = size;
+        bytes = 0;
+        index = CompletableFuture.supplyAsync(this::build);
+    }
+
+    /**
+     * @return the directory containing the cached images.
+     */
+    public Path root()
+    {
+        return root;
+    }
+
+    /**
+     * Determine whether or not this cache has the given limits.
+     *
+     * @param count maximum number of images
+     * @param size maximum total size of images
+     * @return <code>true</code> if this cache has the same limits, and <code>false</code> otherwise.
+     */
+    public boolean hasLimits(int count, long size)
+    {
+        return maxCount == count && maxBytes == size;
+    }
+
+    /**
+     * Get the file an image with the given name is stored in, whether or not it exists.
+     * If the index is still being built and the image hasn't been moved into its
+     * subdirectory yet, this is where it is now.
+     *
+     * @param name name of the image file
+     * @return the path to the image in the cache.
+     */
+    public Path resolve(String name)
+    {
+        Path file = root.resolve(shard(name)).resolve(name);
+        if (!index.isDone() && !Files.exists(file))
+        {
+            Path flat = root.resolve(name);
+            if (Files.exists(flat))
+                return flat;
+        }
+        return file;
+    }
+
+    /**
+     * Find all of the images in the cache, deleting leftover partial downloads and moving
+     * images that aren't in a subdirectory into one.
+     *
+     * @return the index of images in the cache.
+     */
+    private LinkedHashMap<String, Long> build()
+    {
+        record Found(String name, long size, FileTime used) {}
+
+        var found = new ArrayList<Found>();
+        var misplaced = new ArrayList<Path>();
+        try
+        {
+            Files.createDirectories(root);
+            Files.walkFileTree(root, Set.of(), 2, new SimpleFileVisitor<>()
+            {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException
+                {
+                    String name = file.getFileName().toString();
+                    if (!attributes.isRegularFile())
+                        return FileVisitResult.CONTINUE;
+                    else if (name.endsWith(PARTIAL))
+                        Files.deleteIfExists(file);
+                    else
+                    {
+                        if (!file.getParent().equals(root.resolve(shard(name))))
+                            misplaced.add(file);
+                        found.add(new Found(name, attributes.size(), attributes.lastModifiedTime()));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e)
+                {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        catch (IOException e)
+        {
+            System.err.println("Error reading image cache " + root + ": " + e.getMessage());
+        }
+        for (Path file : misplaced)
+        {
+            try
+            {
+                String name = file.getFileName().toString();
+                Path target = root.resolve(shard(name)).resolve(name);
+                Files.createDirectories(target.getParent());
+                Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (IOException e)
+            {
+                System.err.println("Error moving " + file + " into image cache: " + e.getMessage());
+            }
+        }
+
+        found.sort(Comparator.comparing(Found::used));
+        var images = new LinkedHashMap<String, Long>(found.size()*2, 0.75f, true);
+        long total = 0;
+        for (Found image : found)
+        {
+            Long previous = images.put(image.name(), image.size());
+            total += image.size() - (previous == null ? 0 : previous);
+        }
+        synchronized (this)
+        {
+            bytes = total;
+        }
+        return images;
+    }
+
+    /**
+     * Mark an image as having just been used, so it will be among the last to be deleted.
+     * The change is saved in the file's modification time so it persists to the next time
+     * the index is built.  If the index isn't done being built, the change is made after it
+     * is.
+     *
+     * @param file image that was used
+     */
+    public void touch(Path file)
+    {
+        index.thenAccept((images) -> {
+            synchronized (this)
+            {
+                if (images.get(file.getFileName().toString()) == null)
+                    return;
+            }
+            try
+            {
+                Files.setLastModifiedTime(resolve(file.getFileName().toString()), FileTime.fromMillis(System.currentTimeMillis()));
+            }
+            catch (IOException e)
+            {}
+        });
+    }
+
+    /**
+     * Add images to the cache that were just saved to it, and then delete the least
+     * recently used images if there are too many.  The images that were just saved are
+     * never deleted, even if there are more of them than the cache is allowed.  If the
+     * index isn't done being built, they are added after it is.
+     *
+     * @param files images that were saved
+     */
+    public void add(List<Path> files)
+    {
+        index.thenAccept((images) -> add(images, files));
+    }
+
+    /**
+     * Add images to the index and delete the least recently used images if there are too
+     * many.
+     *
+     * @param images index to add images to
+     * @param files images that were saved
+     */
+    private void add(LinkedHashMap<String, Long> images, List<Path> files)
+    {
+        var added = new HashSet<String>();
+        var evicted = new ArrayList<Path>();
+        synchronized (this)
+        {
+            for (Path file : files)
+            {
+                try
+                {
+                    String name = file.getFileName().toString();
+                    long size = Files.size(resolve(name));
+                    Long previous = images.put(name, size);
+                    added.add(name);
+                    bytes += size - (previous == null ? 0 : previous);
+                }
+                catch (IOException e)
+                {}
+            }
+            if (images.size() > maxCount || bytes > maxBytes)
+            {
+                int count = Math.max(1, (int)(maxCount*LOW_WATER));
+                long size = (long)(maxBytes*LOW_WATER);
+                for (Iterator<Map.Entry<String, Long>> i = images.entrySet().iterator(); i.hasNext() && (images.size() > count || bytes > size);)
+                {
+                    var image = i.next();
+                    if (!added.contains(image.getKey()))
+                    {
+                        evicted.add(resolve(image.getKey()));
+                        bytes -= image.getValue();
+                        i.remove();
+                    }
+                }
+            }
+        }
+        for (Path file : evicted)
+        {
+            try
+            {
+                Files.deleteIfExists(file);
+            }
+            catch (IOException e)
+            {
+                System.err.println("Error deleting " + file + " from image cache: " + e.getMessage());
+            }
+        }
+    }
+}
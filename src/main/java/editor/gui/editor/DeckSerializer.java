@@ -4,15 +4,20 @@ import java.awt.BorderLayout;
 import java.awt.Dialog;
 import java.awt.FlowLayout;
 import java.awt.Window;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.ObjectInputStream;
-import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.text.SimpleDateFormat;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -28,18 +33,17 @@ import javax.swing.JPanel;
 import javax.swing.JProgressBar;
 import javax.swing.SwingWorker;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 import editor.collection.deck.Deck;
 import editor.collection.export.CardListFormat;
+import editor.collection.export.LineError;
 import editor.gui.MainFrame;
+import editor.serialization.BinaryDeckFormat;
+import editor.serialization.DeckAdapter;
 import editor.util.ExceptionConsumer;
 import editor.util.ProgressInputStream;
 
@@ -51,7 +55,7 @@ import editor.util.ProgressInputStream;
  * 
  * @author Alec Roelke
  */
-public class DeckSerializer implements JsonDeserializer<DeckSerializer>, JsonSerializer<DeckSerializer>
+public class DeckSerializer extends TypeAdapter<DeckSerializer>
 {
     /**
      * Format to display dates for changes made to a deck.
@@ -66,6 +70,15 @@ public class DeckSerializer implements JsonDeserializer<DeckSerializer>, JsonSer
      * 3. Allow multiple sideboards
      */
     private static final long SAVE_VERSION = 3;
+    /**
+     * Minimum number of bytes to read from a deck file between updates of the
+     * progress bar.
+     */
+    private static final long PROGRESS_GRANULARITY = 1 << 16;
+    /**
+     * Serializer for the main deck and sideboards.
+     */
+    private static final DeckAdapter DECKS = new DeckAdapter();
 
     /**
      * This class is a worker for loading a deck.  Comes with a dialog that can
@@ -129,9 +142,9 @@ public class DeckSerializer implements JsonDeserializer<DeckSerializer>, JsonSer
         @Override
         protected Void doInBackground() throws Exception
         {
-            try (var pis = new ProgressInputStream(new FileInputStream(file), (a, b) -> publish(b.intValue())))
+            try (var in = new BufferedInputStream(new ProgressInputStream(new FileInputStream(file), PROGRESS_GRANULARITY, (a, b) -> publish(b.intValue()))))
             {
-                background.accept(pis);
+                background.accept(in);
             }
             return null;
         }
@@ -160,6 +173,8 @@ public class DeckSerializer implements JsonDeserializer<DeckSerializer>, JsonSer
 
     /** Changelog of the loaded deck. */
     private String changelog;
+    /** Problems found with lines of an imported card list. */
+    private List<LineError> importErrors;
     /** The loaded deck. */
     private Deck deck;
     /** File to load the deck from or that the deck has been loaded from. */
@@ -197,6 +212,23 @@ public class DeckSerializer implements JsonDeserializer<DeckSerializer>, JsonSer
         notes = n;
     }
 
+    /**
+     * Create a new DeckSerializer with the given deck, sideboard, and changelog
+     * already loaded, along with problems found while importing them from a card
+     * list.
+     * 
+     * @param d preloaded deck
+     * @param s preloaded sideboards
+     * @param n preloaded notes
+     * @param c preloaded changelog
+     * @param e problems found with lines of the imported card list
+     */
+    public DeckSerializer(Deck d, Map<String, Deck> s, String n, String c, List<LineError> e)
+    {
+        this(d, s, n, c);
+        importErrors = List.copyOf(e);
+    }
+
     /**
      * @return <code>true</code> if the file that was used to open the deck can
      * be saved to, which is if it is defined and is of the native format for
@@ -223,6 +255,15 @@ public class DeckSerializer implements JsonDeserializer<DeckSerializer>, JsonSer
         return deck;
     }
 
+    /**
+     * @return the problems found with lines of the card list the deck was imported
+     * from, in order.  If the deck wasn't imported from a card list, this is empty.
+     */
+    public List<LineError> importErrors()
+    {
+        return importErrors;
+    }
+
     /**
      * @return the File corresponding to the saved or loaded deck.
      */
@@ -252,6 +293,7 @@ public class DeckSerializer implements JsonDeserializer<DeckSerializer>, JsonSer
             DeckSerializer loaded = format.parse(s);
             deck = loaded.deck;
             sideboard = loaded.sideboard;
+            importErrors = loaded.importErrors;
             imported = true;
         });
         worker.executeAndDisplay();
@@ -335,7 +377,7 @@ public class DeckSerializer implements JsonDeserializer<DeckSerializer>, JsonSer
     }
 
     /**
-     * Load a deck from a JSON deck file.  If an error occurs during loading the deck,
+     * Load a deck from a JSON or binary deck file.  If an error occurs during loading the deck,
      * this serializer is reset to an empty state.
      * 
      * @param f File to load from
@@ -348,14 +390,20 @@ public class DeckSerializer implements JsonDeserializer<DeckSerializer>, JsonSer
             throw new DeckLoadException(file, "deck already loaded");
 
         LoadWorker worker = new LoadWorker(f, parent, (s) -> {
-            try (var bf = new BufferedReader(new InputStreamReader(s)))
+            DeckSerializer loaded;
+            if (BinaryDeckFormat.detect(s))
+                loaded = BinaryDeckFormat.read(s);
+            else
             {
-                DeckSerializer loaded = MainFrame.SERIALIZER.fromJson(bf, DeckSerializer.class);
-                deck = loaded.deck;
-                sideboard = loaded.sideboard;
-                notes = loaded.notes;
-                changelog = loaded.changelog;
+                try (var bf = new BufferedReader(new InputStreamReader(s, StandardCharsets.UTF_8)))
+                {
+                    loaded = MainFrame.SERIALIZER.fromJson(bf, DeckSerializer.class);
+                }
             }
+            deck = loaded.deck;
+            sideboard = loaded.sideboard;
+            notes = loaded.notes;
+            changelog = loaded.changelog;
         });
         worker.executeAndDisplay();
         try
@@ -393,22 +441,53 @@ public class DeckSerializer implements JsonDeserializer<DeckSerializer>, JsonSer
         file = null;
         notes = "";
         sideboard = new LinkedHashMap<>();
+        importErrors = List.of();
         imported = false;
     }
 
     /**
-     * Save the deck to the given file.
+     * Save the deck to the given file.  The deck is written to a temporary file next
+     * to it first, which then replaces it, so the file is never left partially written.
+     * If the file has the {@link BinaryDeckFormat#EXTENSION binary deck extension}, the
+     * deck is saved in binary format; otherwise it is saved as JSON.
      *
      * @param f file to save to
      * @throws IOException if the file could not be saved
      */
     public void save(File f) throws IOException
     {
-        try (FileWriter writer = new FileWriter(f))
+        Path target = f.toPath().toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try
         {
-            writer.write(MainFrame.SERIALIZER.toJson(this));
+            if (f.getName().endsWith('.' + BinaryDeckFormat.EXTENSION))
+            {
+                try (var out = new BufferedOutputStream(Files.newOutputStream(temp)))
+                {
+                    BinaryDeckFormat.write(out, deck, sideboard, notes, changelog);
+                }
+            }
+            else
+            {
+                try (var writer = MainFrame.SERIALIZER.newJsonWriter(Files.newBufferedWriter(temp, StandardCharsets.UTF_8)))
+                {
+                    write(writer, this);
+                }
+            }
+            try
+            {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
             file = f;
         }
+        finally
+        {
+            Files.deleteIfExists(temp);
+        }
     }
 
     /**
@@ -420,33 +499,66 @@ public class DeckSerializer implements JsonDeserializer<DeckSerializer>, JsonSer
     }
 
     @Override
-    public JsonElement serialize(DeckSerializer src, Type typeOfSrc, JsonSerializationContext context)
+    public void write(JsonWriter out, DeckSerializer value) throws IOException
     {
-        JsonObject json = new JsonObject();
-        json.add("main", context.serialize(src.deck));
-        JsonArray side = new JsonArray();
-        for (String n : src.sideboard.keySet())
+        out.beginObject();
+        out.name("main");
+        DECKS.write(out, value.deck);
+        out.name("sideboards").beginArray();
+        for (var e : value.sideboard.entrySet())
         {
-            JsonObject board = context.serialize(src.sideboard.get(n)).getAsJsonObject();
-            board.addProperty("name", n);
-            side.add(board);
+            out.beginObject();
+            DECKS.writeFields(out, e.getValue());
+            out.name("name").value(e.getKey());
+            out.endObject();
         }
-        json.add("sideboards", side);
-        json.addProperty("notes", src.notes);
-        json.addProperty("changelog", src.changelog);
-        return json;
+        out.endArray();
+        out.name("notes").value(value.notes);
+        out.name("changelog").value(value.changelog);
+        out.endObject();
     }
 
     @Override
-    public DeckSerializer deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException
+    public DeckSerializer read(JsonReader in) throws IOException
     {
-        JsonObject obj = json.getAsJsonObject();
-        Deck deck = context.deserialize(obj.get("main"), Deck.class);
-        String notes = obj.has("notes") ? obj.get("notes").getAsString() : "";
-        var sideboard = new LinkedHashMap<String, Deck>();
-        for (JsonElement entry : obj.get("sideboards").getAsJsonArray())
-            sideboard.put(entry.getAsJsonObject().get("name").getAsString(), context.deserialize(entry, Deck.class));
-        String changelog = obj.get("changelog").getAsString();
-        return new DeckSerializer(deck, sideboard, notes, changelog);
+        Deck main = new Deck();
+        var sideboards = new LinkedHashMap<String, Deck>();
+        String deckNotes = "";
+        String deckChangelog = "";
+        in.beginObject();
+        while (in.hasNext())
+        {
+            switch (in.nextName())
+            {
+            case "main" -> main = DECKS.read(in);
+            case "sideboards" -> {
+                in.beginArray();
+                while (in.hasNext())
+                {
+                    Deck board = new Deck();
+                    String name = null;
+                    in.beginObject();
+                    while (in.hasNext())
+                    {
+                        String field = in.nextName();
+                        if (field.equals("name"))
+                            name = in.nextString();
+                        else if (!DECKS.readField(in, field, board))
+                            in.skipValue();
+                    }
+                    in.endObject();
+                    if (name == null)
+                        throw new JsonParseException("sideboard has no name");
+                    sideboards.put(name, board);
+                }
+                in.endArray();
+            }
+            case "notes" -> deckNotes = in.nextString();
+            case "changelog" -> deckChangelog = in.nextString();
+            default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return new DeckSerializer(main, sideboards, deckNotes, deckChangelog);
     }
-}
\ No newline at end of file
+}
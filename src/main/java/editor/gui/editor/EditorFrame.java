@@ -22,6 +22,7 @@ import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -217,6 +218,11 @@ public class EditorFrame extends JInternalFrame
          * Table displaying the deck.
          */
         public CardTable table;
+        /**
+         * Listener keeping track of which cards are in the deck, or null if it isn't
+         * being tracked.
+         */
+        public Deck.MembershipListener tracker;
 
         /**
          * Create a copy of a DeckData.
@@ -496,6 +502,10 @@ public class EditorFrame extends JInternalFrame
      * value here.
      */
     private List<DeckData> lists;
+    /**
+     * Map of each card in any list onto the set of IDs of the lists that contain it.
+     */
+    private Map<Card, BitSet> membership;
     /**
      * Tabbed pane for choosing whether to display the entire deck or the categories.
      */
@@ -579,6 +589,8 @@ public class EditorFrame extends JInternalFrame
 
         lists = new ArrayList<>(2);
         lists.add(new DeckData(manager.deck()));
+        membership = new HashMap<>();
+        track(MAIN_DECK);
 
         parent = p;
         unsaved = false;
@@ -1456,6 +1468,7 @@ public class EditorFrame extends JInternalFrame
             while (lists.size() <= id)
                 lists.add(null);
             lists.set(id, newExtra);
+            track(id);
 
             final EditablePanel panel = new EditablePanel(name, extrasPane);
             extrasPane.insertTab(name, null, initExtraList(id), null, index);
@@ -1554,6 +1567,7 @@ public class EditorFrame extends JInternalFrame
         if (lists.get(id) == null)
             throw new IllegalArgumentException("missing sideboard with ID " + id);
 
+        untrack(id);
         lists.set(id, null);
         extrasPane.remove(index);
         if (index > 0)
@@ -1567,6 +1581,48 @@ public class EditorFrame extends JInternalFrame
         return true;
     }
 
+    /**
+     * Start keeping track of which cards are in a list, so that {@link #hasCard(Card)}
+     * doesn't have to search each list.
+     *
+     * @param id ID of the list to track
+     */
+    private void track(int id)
+    {
+        DeckData list = lists.get(id);
+        list.tracker = (card, contained) -> {
+            if (contained)
+                membership.computeIfAbsent(card, (c) -> new BitSet()).set(id);
+            else
+            {
+                BitSet ids = membership.get(card);
+                if (ids != null)
+                {
+                    ids.clear(id);
+                    if (ids.isEmpty())
+                        membership.remove(card);
+                }
+            }
+        };
+        for (Card card : list.current)
+            list.tracker.membershipChanged(card, true);
+        list.current.addMembershipListener(list.tracker);
+    }
+
+    /**
+     * Stop keeping track of which cards are in a list, and forget about the cards in it.
+     *
+     * @param id ID of the list to stop tracking
+     */
+    private void untrack(int id)
+    {
+        DeckData list = lists.get(id);
+        list.current.removeMembershipListener(list.tracker);
+        for (Card card : list.current)
+            list.tracker.membershipChanged(card, false);
+        list.tracker = null;
+    }
+
     /**
      * Helper method for adding a category.
      * 
@@ -2002,7 +2058,10 @@ public class EditorFrame extends JInternalFrame
         if (lists.get(id) == null)
             throw new ArrayIndexOutOfBoundsException(id);
         else
-            return lists.get(id).current.contains(card);
+        {
+            BitSet ids = membership.get(card);
+            return ids != null && ids.get(id);
+        }
     }
 
     /**
@@ -2013,7 +2072,21 @@ public class EditorFrame extends JInternalFrame
      */
     public List<Integer> hasCard(Card card)
     {
-        return IntStream.range(0, lists.size()).filter((i) -> lists.get(i) != null && lists.get(i).current.contains(card)).boxed().collect(Collectors.toList());
+        BitSet ids = membership.get(card);
+        return ids == null ? new ArrayList<>() : ids.stream().boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * Determine if any extra list contains a card.
+     *
+     * @param card card to search for
+     * @return <code>true</code> if a list other than the main deck contains the card, and
+     * <code>false</code> otherwise.
+     */
+    public boolean hasCardInExtras(Card card)
+    {
+        BitSet ids = membership.get(card);
+        return ids != null && ids.nextSetBit(MAIN_DECK + 1) >= 0;
     }
 
     /**
@@ -8,20 +8,27 @@ import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.function.Consumer;
+import java.util.zip.ZipException;
 import java.util.zip.ZipInputStream;
 
 import javax.swing.BorderFactory;
@@ -38,10 +45,16 @@ import javax.swing.WindowConstants;
 
 /**
  * Class for downloading and decompressing the inventory, displaying progress in a
- * popup dialog.
+ * popup dialog.  The archive is decompressed as it is downloaded, and the compressed
+ * data is saved as well so that a download that was interrupted can be resumed.  The
+ * current inventory is only replaced once the new one has been completely decompressed
+ * and its checksum has been verified.
  */
 public abstract class InventoryDownloader
 {
+    /** Size of the buffers used for downloading and decompressing the inventory. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
     /**
      * Download the inventory from the Internet and decompress it. Display a dialog showing
      * progress and allowing cancellation.
@@ -55,16 +68,11 @@ public abstract class InventoryDownloader
      */
     public static boolean downloadInventory(Frame owner, URL site, File file) throws IOException
     {
-        File zip = new File(file.getPath() + ".zip");
-        File tmp = new File(zip.getPath() + ".tmp");
-
         JDialog dialog = new JDialog(owner, "Update", Dialog.ModalityType.APPLICATION_MODAL);
         dialog.setPreferredSize(new Dimension(350, 115));
         dialog.setResizable(false);
         dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
 
-        UnzipWorker unzipper = new UnzipWorker(zip, file);
-
         // Content panel
         JPanel contentPanel = new JPanel(new BorderLayout(0, 2));
         contentPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
@@ -79,9 +87,9 @@ public abstract class InventoryDownloader
         progressBar.setIndeterminate(true);
         contentPanel.add(progressBar, BorderLayout.CENTER);
 
-        DownloadWorker downloader = new DownloadWorker(site, tmp);
+        DownloadWorker downloader = new DownloadWorker(site, file);
         if (downloader.size() >= 0)
-            progressBar.setMaximum(downloader.size());
+            progressBar.setMaximum((int)Math.min(downloader.size(), Integer.MAX_VALUE));
         downloader.setUpdateFunction((downloaded) -> {
             StringBuilder progress = new StringBuilder();
             progress.append("Downloading inventory... " + formatDownload(downloaded));
@@ -90,7 +98,7 @@ public abstract class InventoryDownloader
             else
             {
                 progressBar.setIndeterminate(false);
-                progressBar.setValue(downloaded);
+                progressBar.setValue((int)Math.min(downloaded, Integer.MAX_VALUE));
                 progress.append("B/" + formatDownload(downloader.size()));
             }
             progress.append("B downloaded.");
@@ -100,10 +108,7 @@ public abstract class InventoryDownloader
         // Cancel button
         JPanel cancelPanel = new JPanel();
         JButton cancelButton = new JButton("Cancel");
-        cancelButton.addActionListener((e) -> {
-            downloader.cancel(true);
-            unzipper.cancel(true);
-        });
+        cancelButton.addActionListener((e) -> downloader.cancel(true));
         cancelPanel.add(cancelButton);
         contentPanel.add(cancelPanel, BorderLayout.SOUTH);
 
@@ -112,13 +117,9 @@ public abstract class InventoryDownloader
             public void windowClosing(WindowEvent e)
             {
                 downloader.cancel(true);
-                unzipper.cancel(true);
             }
         });
-        dialog.getRootPane().registerKeyboardAction((e) -> {
-            downloader.cancel(true);
-            unzipper.cancel(true);
-        }, KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+        dialog.getRootPane().registerKeyboardAction((e) -> downloader.cancel(true), KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
 
         dialog.pack();
         dialog.setLocationRelativeTo(owner);
@@ -131,50 +132,15 @@ public abstract class InventoryDownloader
             }
             catch (InterruptedException | ExecutionException e)
             {
-                JOptionPane.showMessageDialog(owner, "Error downloading " + zip.getName() + ": " + e.getCause().getMessage() + ".", "Error", JOptionPane.ERROR_MESSAGE);
-                tmp.delete();
-                dialog.setVisible(false);
-                return false;
-            }
-            catch (CancellationException e)
-            {
-                tmp.delete();
-                dialog.setVisible(false);
-                return false;
-            }
-            try
-            {
-                Files.move(tmp.toPath(), zip.toPath(), StandardCopyOption.REPLACE_EXISTING);
-            }
-            catch (IOException e)
-            {
-                JOptionPane.showMessageDialog(owner, "Could not replace temporary file: " + e.getMessage() + ".", "Error", JOptionPane.ERROR_MESSAGE);
-                dialog.setVisible(false);
-                return false;
-            }
-
-            progressLabel.setText("Unzipping archive...");
-            unzipper.execute();
-            try
-            {
-                unzipper.get();
-            }
-            catch (InterruptedException | ExecutionException e)
-            {
-                JOptionPane.showMessageDialog(owner, "Error decompressing " + zip.getName() + ": " + e.getCause().getMessage() + ".", "Error", JOptionPane.ERROR_MESSAGE);
+                JOptionPane.showMessageDialog(owner, "Error downloading " + file.getName() + ": " + e.getCause().getMessage() + ".", "Error", JOptionPane.ERROR_MESSAGE);
                 dialog.setVisible(false);
                 return false;
             }
             catch (CancellationException e)
             {
                 dialog.setVisible(false);
-                file.delete();
                 return false;
             }
-            finally
-            {
-                zip.delete();
-            }
             dialog.setVisible(false);
             return true;
         });
@@ -200,7 +166,7 @@ public abstract class InventoryDownloader
      * @param n integer to format
      * @return A formatted string.
      */
-    private static String formatDownload(int n)
+    private static String formatDownload(long n)
     {
         if (n < 0)
             return "";
@@ -212,23 +178,108 @@ public abstract class InventoryDownloader
             return String.format("%.2fM", n/1048576.0);
     }
 
+    /**
+     * This class represents a stream that copies everything read from it to another
+     * stream and keeps track of how many bytes have been read.
+     *
+     * @author Alec Roelke
+     */
+    private static class SavingInputStream extends FilterInputStream
+    {
+        /** Stream to copy data to. */
+        private final OutputStream copy;
+        /** Number of bytes that have been read. */
+        private long read;
+
+        /**
+         * Create a new SavingInputStream.
+         *
+         * @param in stream to read from
+         * @param out stream to copy data to
+         */
+        public SavingInputStream(InputStream in, OutputStream out)
+        {
+            super(in);
+            copy = out;
+            read = 0;
+        }
+
+        /**
+         * @return the number of bytes that have been read.
+         */
+        public long bytesRead()
+        {
+            return read;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int b = super.read();
+            if (b >= 0)
+            {
+                copy.write(b);
+                read++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            int n = super.read(b, off, len);
+            if (n > 0)
+            {
+                copy.write(b, off, n);
+                read += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            byte[] skipped = new byte[(int)Math.min(n, BUFFER_SIZE)];
+            int x = read(skipped, 0, skipped.length);
+            return Math.max(x, 0);
+        }
+
+        @Override
+        public boolean markSupported()
+        {
+            return false;
+        }
+    }
+
     /**
      * This class represents a worker which downloads the inventory from a website
-     * in the background.  It is tied to a dialog which blocks input until the
-     * download is complete.
+     * and decompresses it as it arrives.  It is tied to a dialog which blocks input
+     * until the download is complete.
+     *
+     * The compressed data is saved next to the inventory file as it is downloaded.  If
+     * a download is canceled or fails, the next one sends an HTTP range request for
+     * the rest of the archive, but only if the archive hasn't changed since.  The data
+     * that was already downloaded is then decompressed from disk before the rest is
+     * downloaded.
      *
      * @author Alec Roelke
      */
-    private static class DownloadWorker extends SwingWorker<Void, Integer>
+    private static class DownloadWorker extends SwingWorker<Void, Long>
     {
         /** File to store the inventory file in. */
         private File file;
+        /** File containing the compressed data downloaded so far. */
+        private Path partial;
+        /** File containing the version of the archive being downloaded, to check before resuming. */
+        private Path validator;
         /** Connection to the inventory site. */
         private URLConnection connection;
-        /** Number of bytes to download from the inventory site. */
-        private int size;
+        /** Number of bytes of compressed data that were already downloaded. */
+        private long resumed;
+        /** Number of bytes to download from the inventory site, including those already downloaded. */
+        private long size;
         /** Function for updating the GUI with the number of bytes downloaded. */
-        private Consumer<Integer> updater;
+        private Consumer<Long> updater;
 
         /**
          * Create a new InventoryDownloadWorker.  A new one must be created each time
@@ -236,52 +287,117 @@ public abstract class InventoryDownloader
          *
          * @param s URL to download the file from
          * @param f File to store it locally in
+         * @throws IOException if the site can't be connected to
          */
         public DownloadWorker(URL s, File f) throws IOException
         {
             super();
             file = f;
-            connection = s.openConnection();
-            size = connection.getContentLength();
+            partial = Path.of(f.getPath() + ".zip.part");
+            validator = Path.of(partial + ".version");
             updater = (i) -> {};
+
+            resumed = 0;
+            connection = s.openConnection();
+            String version = "";
+            if (connection instanceof HttpURLConnection && Files.exists(partial) && Files.exists(validator))
+            {
+                version = Files.readString(validator).strip();
+                long saved = Files.size(partial);
+                if (!version.isEmpty() && saved > 0)
+                {
+                    connection.setRequestProperty("Range", "bytes=" + saved + "-");
+                    connection.setRequestProperty("If-Range", version);
+                    resumed = saved;
+                }
+            }
+            long length = connection.getContentLengthLong();
+            if (resumed > 0)
+            {
+                // The server sends the whole archive if it can't or won't resume
+                String range = connection.getHeaderField("Content-Range");
+                if (((HttpURLConnection)connection).getResponseCode() != HttpURLConnection.HTTP_PARTIAL || range == null || !range.startsWith("bytes " + resumed + "-"))
+                    resumed = 0;
+            }
+            size = length < 0 ? -1 : resumed + length;
+
+            if (resumed == 0)
+            {
+                version = Optional.ofNullable(connection.getHeaderField("ETag")).orElse(Optional.ofNullable(connection.getHeaderField("Last-Modified")).orElse(""));
+                Files.deleteIfExists(validator);
+                if (!version.isEmpty())
+                    Files.writeString(validator, version);
+            }
         }
 
         /**
          * @return The number of bytes to be downloaded.
          */
-        public int size()
+        public long size()
         {
             return size;
         }
 
         /**
          * {@inheritDoc}
-         * Connect to the site to download the file from, and the download the file,
-         * periodically reporting how many bytes have been downloaded.
+         * Download the archive and decompress it as it arrives, periodically reporting how
+         * many bytes have been downloaded.  The decompressed inventory is written to a
+         * temporary file, and only replaces the inventory file if its checksum matches the
+         * one in the archive.
          */
         @Override
         protected Void doInBackground() throws Exception
         {
+            Path tmp = Path.of(file.getPath() + ".tmp");
+            boolean done = false;
             try
             {
-                try (BufferedInputStream in = new BufferedInputStream((connection.getInputStream())))
+                try (InputStream previous = resumed > 0 ? Files.newInputStream(partial) : InputStream.nullInputStream();
+                     OutputStream saved = resumed > 0 ? Files.newOutputStream(partial, StandardOpenOption.APPEND) : Files.newOutputStream(partial);
+                     SavingInputStream remote = new SavingInputStream(connection.getInputStream(), saved);
+                     ZipInputStream zis = new ZipInputStream(new BufferedInputStream(new SequenceInputStream(previous, remote), BUFFER_SIZE));
+                     OutputStream out = Files.newOutputStream(tmp))
+                {
+                    if (zis.getNextEntry() == null)
+                        throw new ZipException("inventory archive is empty");
+                    byte[] data = new byte[BUFFER_SIZE];
+                    long reported = -1;
+                    int x;
+                    while (!isCancelled() && (x = zis.read(data)) >= 0)
+                    {
+                        out.write(data, 0, x);
+                        if (remote.bytesRead() != reported)
+                            publish(resumed + (reported = remote.bytesRead()));
+                    }
+                }
+                if (!isCancelled())
                 {
-                    try (BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(file)))
+                    try
+                    {
+                        Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    }
+                    catch (AtomicMoveNotSupportedException e)
                     {
-                        byte[] data = new byte[1024];
-                        int size = 0;
-                        int x;
-                        while (!isCancelled() && (x = in.read(data)) > 0)
-                        {
-                            size += x;
-                            out.write(data, 0, x);
-                            publish(size);
-                        }
+                        Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
                     }
+                    done = true;
                 }
             }
+            catch (ZipException e)
+            {
+                // The saved data is bad, so don't try to resume from it next time
+                done = true;
+                throw e;
+            }
             finally
-            {}
+            {
+                Files.deleteIfExists(tmp);
+                if (done)
+                {
+                    Files.deleteIfExists(partial);
+                    Files.deleteIfExists(validator);
+                }
+            }
             return null;
         }
 
@@ -290,7 +406,7 @@ public abstract class InventoryDownloader
          * 
          * @param u download update function
          */
-        public void setUpdateFunction(Consumer<Integer> u)
+        public void setUpdateFunction(Consumer<Long> u)
         {
             updater = u;
         }
@@ -301,59 +417,9 @@ public abstract class InventoryDownloader
          * if it is too large.
          */
         @Override
-        protected void process(List<Integer> chunks)
+        protected void process(List<Long> chunks)
         {
             updater.accept(chunks.get(chunks.size() - 1));
         }
     }
-
-    /**
-     * This class represents a worker which unzips a zipped archive of the inventory.
-     *
-     * @author Alec Roelke
-     */
-    private static class UnzipWorker extends SwingWorker<Void, Void>
-    {
-        /**
-         * Zip file containing the inventory.
-         */
-        private File zipfile;
-        /**
-         * File to write the unzipped inventory to.
-         */
-        private File outfile;
-
-        /**
-         * Create a new InventoryUnzipWorker to unzip a file.
-         *
-         * @param z file to unzip
-         * @param o file to store the result to
-         */
-        public UnzipWorker(File z, File o)
-        {
-            zipfile = z;
-            outfile = o;
-        }
-
-        /**
-         * {@inheritDoc}
-         * Open the zip file, decompress it, and store the result back to disk.
-         */
-        @Override
-        protected Void doInBackground() throws Exception
-        {
-            try (ZipInputStream zis = new ZipInputStream(new FileInputStream(zipfile)))
-            {
-                zis.getNextEntry();
-                try (BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(outfile)))
-                {
-                    byte[] data = new byte[1024];
-                    int x;
-                    while (!isCancelled() && (x = zis.read(data)) > 0)
-                        out.write(data, 0, x);
-                }
-            }
-            return null;
-        }
-    }
-}
\ No newline at end of file
+}
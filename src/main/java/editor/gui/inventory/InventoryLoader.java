@@ -11,19 +11,23 @@ import java.awt.event.WindowEvent;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -34,7 +38,10 @@ import java.util.Set;
 import java.util.StringJoiner;
 import java.util.TreeMap;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -62,6 +69,7 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 
 import editor.collection.Inventory;
 import editor.database.FormatConstraints;
@@ -86,6 +94,7 @@ import editor.filter.leaf.options.multi.SubtypeFilter;
 import editor.filter.leaf.options.multi.SupertypeFilter;
 import editor.gui.MainFrame;
 import editor.gui.settings.SettingsDialog;
+import editor.util.ProgressInputStream;
 
 /**
  * Worker that loads the JSON inventory file into memory and displays progress in a
@@ -96,6 +105,43 @@ import editor.gui.settings.SettingsDialog;
 public class InventoryLoader extends SwingWorker<Inventory, String>
 {
     private static final DatabaseVersion VER_5_0_0 = new DatabaseVersion(5, 0, 0);
+    /** Properties of each expansion that are needed to create it and its cards. */
+    private static final Set<String> SET_PROPERTIES = Set.of("name", "block", "code", "releaseDate", "cards");
+    /** Maximum number of expansions to have read but not yet merged into the inventory at once. */
+    private static final int MAX_PENDING_SETS = 2*ForkJoinPool.getCommonPoolParallelism();
+
+    /**
+     * Cards and other information created from a single expansion.
+     * 
+     * @param set expansion that was loaded
+     * @param cards cards in the expansion, including individual faces of multi-faced cards
+     * @param faces names of the faces of each multi-faced card (pre-5.0.0)
+     * @param multiUUIDs faces of multi-faced cards by UUID (5.0.0+)
+     * @param facesNames names of the faces of each multi-faced card (5.0.0+)
+     * @param otherFaceIds UUIDs of the other faces of each multi-faced card (5.0.0+)
+     * @param errors errors that occurred while loading the expansion
+     * 
+     * @author Alec Roelke
+     */
+    private record LoadedSet(
+        Expansion set,
+        List<Card> cards,
+        Map<Card, List<String>> faces,
+        Map<String, Card> multiUUIDs,
+        Map<Card, List<String>> facesNames,
+        Map<Card, List<String>> otherFaceIds,
+        List<String> errors
+    ) {
+        /**
+         * Create a new, empty set of cards for an expansion.
+         * 
+         * @param set expansion being loaded
+         */
+        public LoadedSet(Expansion set)
+        {
+            this(set, new ArrayList<>(), new HashMap<>(), new HashMap<>(), new HashMap<>(), new HashMap<>(), new ArrayList<>());
+        }
+    }
 
     /**
      * Load the inventory into memory from disk. Display a dialog indicating showing progress
@@ -219,6 +265,47 @@ public class InventoryLoader extends SwingWorker<Inventory, String>
     private Consumer<String> consumer;
     /** Function to perform when done loading. */
     private Runnable finished;
+    /** Version of the database being loaded. */
+    private DatabaseVersion version;
+    /** Format for parsing ruling dates, which isn't thread safe so each thread gets its own. */
+    private final ThreadLocal<DateFormat> format;
+
+    /** Cards that have been loaded so far. */
+    private List<Card> cards;
+    /** Names of the faces of each multi-faced card (pre-5.0.0). */
+    private Map<Card, List<String>> faces;
+    /** Expansions that have been loaded so far. */
+    private Set<Expansion> expansions;
+    /** Names of blocks that have been loaded so far. */
+    private Set<String> blockNames;
+    /** Faces of multi-faced cards by UUID (5.0.0+). */
+    private Map<String, Card> multiUUIDs;
+    /** Names of the faces of each multi-faced card (5.0.0+). */
+    private Map<Card, List<String>> facesNames;
+    /** UUIDs of the other faces of each multi-faced card (5.0.0+). */
+    private Map<Card, List<String>> otherFaceIds;
+
+    // We don't use String.intern() here because the String pool that is maintained must include extra data that adds several MB
+    // to the overall memory consumption of the inventory.  These are shared by all expansions being loaded at once, so they
+    // must be concurrent.
+    private Map<String, ManaCost> costs;
+    private Map<String, List<ManaType>> colorLists;
+    private Map<String, String> allSupertypes;
+    private Map<String, LinkedHashSet<String>> supertypeSets;
+    private Map<String, String> allTypes;
+    private Map<String, LinkedHashSet<String>> typeSets;
+    private Map<String, String> allSubtypes;
+    private Map<String, LinkedHashSet<String>> subtypeSets;
+    private Map<String, String> printedTypes;
+    private Map<String, String> texts;
+    private Map<String, String> flavors;
+    private Map<String, String> artists;
+    private Map<String, String> formats;
+    private Map<String, String> numbers;
+    private Map<String, CombatStat> stats;
+    private Map<String, Loyalty> loyalties;
+    private Map<String, Date> rulingDates;
+    private Map<String, String> rulingContents;
 
     /**
      * Create a new InventoryWorker.
@@ -234,6 +321,35 @@ public class InventoryLoader extends SwingWorker<Inventory, String>
         consumer = c;
         errors = new ArrayList<>();
         finished = d;
+        version = new DatabaseVersion(0, 0, 0); // Anything less than 5.0.0 will do for pre-5.0.0 databases
+        format = ThreadLocal.withInitial(() -> new SimpleDateFormat("yyyy-MM-dd"));
+
+        cards = new ArrayList<>();
+        faces = new HashMap<>();
+        expansions = new HashSet<>();
+        blockNames = new HashSet<>();
+        multiUUIDs = new HashMap<>();
+        facesNames = new HashMap<>();
+        otherFaceIds = new HashMap<>();
+
+        costs = new ConcurrentHashMap<>();
+        colorLists = new ConcurrentHashMap<>();
+        allSupertypes = new ConcurrentHashMap<>();
+        supertypeSets = new ConcurrentHashMap<>();
+        allTypes = new ConcurrentHashMap<>();
+        typeSets = new ConcurrentHashMap<>();
+        allSubtypes = new ConcurrentHashMap<>();
+        subtypeSets = new ConcurrentHashMap<>();
+        printedTypes = new ConcurrentHashMap<>();
+        texts = new ConcurrentHashMap<>();
+        flavors = new ConcurrentHashMap<>();
+        artists = new ConcurrentHashMap<>();
+        formats = new ConcurrentHashMap<>(FormatConstraints.FORMAT_NAMES.stream().collect(Collectors.toMap(Function.identity(), Function.identity())));
+        numbers = new ConcurrentHashMap<>();
+        stats = new ConcurrentHashMap<>();
+        loyalties = new ConcurrentHashMap<>();
+        rulingDates = new ConcurrentHashMap<>();
+        rulingContents = new ConcurrentHashMap<>();
     }
 
     /**
@@ -402,289 +518,404 @@ public class InventoryLoader extends SwingWorker<Inventory, String>
     }
 
     /**
-     * {@inheritDoc}
-     * Import a list of all cards that exist in Magic: the Gathering from a JSON file downloaded from
-     * {@link "http://www.mtgjson.com"}.  Also populate the lists of types and expansions (and their blocks).
-     *
-     * @return The inventory of cards that can be added to a deck.
+     * Read the properties of a single expansion from the inventory file, skipping
+     * the ones that aren't used to build the inventory (like tokens and boosters) so
+     * they never get loaded into memory.
+     * 
+     * @param reader reader positioned at the beginning of the expansion's object
+     * @return A {@link JsonObject} containing the expansion's properties and cards.
+     * @throws IOException if the expansion couldn't be read
      */
-    @Override
-    protected Inventory doInBackground() throws Exception
+    private JsonObject readSet(JsonReader reader) throws IOException
     {
-        final DateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+        JsonObject setProperties = new JsonObject();
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            String property = reader.nextName();
+            if (SET_PROPERTIES.contains(property))
+                setProperties.add(property, new JsonParser().parse(reader));
+            else
+                reader.skipValue();
+        }
+        reader.endObject();
+        return setProperties;
+    }
 
-        publish("Opening " + file.getName() + "...");
+    /**
+     * Create the expansion and all of its cards from the properties read from the inventory
+     * file.  This only touches the loader's state through the concurrent interning maps, so
+     * it can be run for several expansions at once.
+     * 
+     * @param setProperties properties of the expansion, including its cards
+     * @return The expansion and its cards, to be merged into the inventory.
+     */
+    private LoadedSet loadSet(JsonObject setProperties)
+    {
+        // Create the new Expansion
+        JsonArray setCards = setProperties.get("cards").getAsJsonArray();
+        Expansion set = new Expansion(
+            setProperties.get("name").getAsString(),
+            Optional.ofNullable(setProperties.get("block")).map(JsonElement::getAsString).orElse(Expansion.NO_BLOCK),
+            setProperties.get("code").getAsString(),
+            setCards.size(),
+            LocalDate.parse(setProperties.get("releaseDate").getAsString(), Expansion.DATE_FORMATTER)
+        );
+        LoadedSet loaded = new LoadedSet(set);
+        publish("Loading cards from " + set + "...");
+
+        for (JsonElement cardElement : setCards)
+        {
+            // Create the new card for the expansion
+            JsonObject card = cardElement.getAsJsonObject();
+
+            // Card's multiverseid and Scryfall id
+            String scryfallid = (version.compareTo(VER_5_0_0) < 0 ? card.get("scryfallId") : card.get("identifiers").getAsJsonObject().get("scryfallId")).getAsString();
+            int multiverseid = Optional.ofNullable(version.compareTo(VER_5_0_0) < 0 ? card.get("multiverseId") : card.get("identifiers").getAsJsonObject().get("multiverseId")).map(JsonElement::getAsInt).orElse(-1);
+
+            // Card's name
+            String name = card.get(card.has("faceName") ? "faceName" : "name").getAsString();
+
+            // If the card is a token, skip it
+            CardLayout layout;
+            try
+            {
+                layout = CardLayout.valueOf(card.get("layout").getAsString().toUpperCase().replaceAll("[^A-Z]", "_"));
+            }
+            catch (IllegalArgumentException e)
+            {
+                loaded.errors().add(name + " (" + set + "): " + e.getMessage());
+                continue;
+            }
 
-        var cards = new ArrayList<Card>();
-        var faces = new HashMap<Card, List<String>>();
-        var expansions = new HashSet<Expansion>();
-        var blockNames = new HashSet<String>();
-        var multiUUIDs = new HashMap<String, Card>();
-        var facesNames = new HashMap<Card, List<String>>();
-        var otherFaceIds = new HashMap<Card, List<String>>();
+            // Rulings
+            var rulings = new TreeMap<Date, List<String>>();
+            if (card.has("rulings"))
+            {
+                for (JsonElement l : card.get("rulings").getAsJsonArray())
+                {
+                    JsonObject o = l.getAsJsonObject();
+                    String ruling = rulingContents.computeIfAbsent(o.get("text").getAsString(), Function.identity());
+                    try
+                    {
+                        Date temp = format.get().parse(o.get("date").getAsString()); // Have to do this to catch the exception
+                        Date date = rulingDates.computeIfAbsent(o.get("date").getAsString(), (k) -> temp);
+                        if (!rulings.containsKey(date))
+                            rulings.put(date, new ArrayList<>());
+                        rulings.get(date).add(ruling);
+                    }
+                    catch (ParseException x)
+                    {
+                        loaded.errors().add(name + " (" + set + "): " + x.getMessage());
+                    }
+                }
+            }
 
-        // Read the inventory file
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF8")))
+            // Format legality
+            var legality = new HashMap<String, Legality>();
+            for (var entry : card.get("legalities").getAsJsonObject().entrySet())
+                legality.put(formats.computeIfAbsent(entry.getKey(), Function.identity()), Legality.parseLegality(entry.getValue().getAsString()));
+
+            // Formats the card can be commander in
+            var commandFormats = !card.has("leadershipSkills") ? Collections.<String>emptyList() :
+                card.get("leadershipSkills").getAsJsonObject().entrySet().stream()
+                    .filter((e) -> e.getValue().getAsBoolean())
+                    .map((e) -> formats.computeIfAbsent(e.getKey(), Function.identity()))
+                    .sorted()
+                    .collect(Collectors.toList());
+
+            Card c = new SingleCard(
+                layout,
+                name,
+                costs.computeIfAbsent(card.has("manaCost") ? card.get("manaCost").getAsString() : "", ManaCost::parseManaCost),
+                colorLists.computeIfAbsent(card.get("colors").getAsJsonArray().toString(), (k) -> {
+                    var col = new ArrayList<ManaType>();
+                    for (JsonElement e : card.get("colors").getAsJsonArray())
+                        col.add(ManaType.parseManaType(e.getAsString()));
+                    return Collections.unmodifiableList(col);
+                }),
+                colorLists.computeIfAbsent(card.get("colorIdentity").getAsJsonArray().toString(), (k) -> {
+                    var col = new ArrayList<ManaType>();
+                    for (JsonElement e : card.get("colorIdentity").getAsJsonArray())
+                        col.add(ManaType.parseManaType(e.getAsString()));
+                    return Collections.unmodifiableList(col);
+                }),
+                supertypeSets.computeIfAbsent(card.get("supertypes").getAsJsonArray().toString(), (k) -> {
+                    var s = new LinkedHashSet<String>();
+                    for (JsonElement e : card.get("supertypes").getAsJsonArray())
+                        s.add(allSupertypes.computeIfAbsent(e.getAsString(), Function.identity()));
+                    return s;
+                }),
+                typeSets.computeIfAbsent(card.get("types").getAsJsonArray().toString(), (str) -> {
+                    var s = new LinkedHashSet<String>();
+                    for (JsonElement e : card.get("types").getAsJsonArray())
+                        s.add(allTypes.computeIfAbsent(e.getAsString(), Function.identity()));
+                    return s;
+                }),
+                subtypeSets.computeIfAbsent(card.get("subtypes").getAsJsonArray().toString(), (k) -> {
+                    var s = new LinkedHashSet<String>();
+                    for (JsonElement e : card.get("subtypes").getAsJsonArray())
+                        s.add(allSubtypes.computeIfAbsent(e.getAsString(), Function.identity()));
+                    return s;
+                }),
+                printedTypes.computeIfAbsent(card.has("originalType") ? card.get("originalType").getAsString() : "", Function.identity()),
+                Rarity.parseRarity(card.get("rarity").getAsString()),
+                set,
+                texts.computeIfAbsent(card.has("text") ? card.get("text").getAsString() : "", Function.identity()),
+                flavors.computeIfAbsent(card.has("flavorText") ? card.get("flavorText").getAsString() : "", Function.identity()),
+                texts.computeIfAbsent(card.has("originalText") ? card.get("originalText").getAsString() : "", Function.identity()),
+                artists.computeIfAbsent(card.has("artist") ? card.get("artist").getAsString() : "", Function.identity()),
+                multiverseid,
+                scryfallid,
+                numbers.computeIfAbsent(card.get("number").getAsString(), Function.identity()),
+                stats.computeIfAbsent(card.has("power") ? card.get("power").getAsString() : "", CombatStat::new),
+                stats.computeIfAbsent(card.has("toughness") ? card.get("toughness").getAsString() : "", CombatStat::new),
+                loyalties.computeIfAbsent(card.has("loyalty") ? card.get("loyalty").isJsonNull() ? "X" : card.get("loyalty").getAsString() : "", Loyalty::new),
+                rulings,
+                legality,
+                commandFormats
+            );
+
+            // Collect unexpected card values
+            if (c.artist().stream().anyMatch(String::isEmpty))
+                loaded.errors().add(c.unifiedName() + " (" + c.expansion() + "): Missing artist!");
+
+            // Add to map of faces if the card has multiple faces
+            if (layout.isMultiFaced)
+            {
+                if (version.compareTo(VER_5_0_0) < 0)
+                {
+                    var names = new ArrayList<String>();
+                    for (JsonElement e : card.get("names").getAsJsonArray())
+                        names.add(e.getAsString());
+                    loaded.faces().put(c, names);
+                }
+                else
+                {
+                    loaded.multiUUIDs().put(card.get("uuid").getAsString(), c);
+                    loaded.facesNames().put(c, Arrays.asList(card.get("name").getAsString().split(Card.FACE_SEPARATOR)));
+                    loaded.otherFaceIds().put(c, new ArrayList<>());
+                    for (JsonElement id : card.get("otherFaceIds").getAsJsonArray())
+                        loaded.otherFaceIds().get(c).add(id.getAsString());
+                }
+            }
+
+            loaded.cards().add(c);
+        }
+        return loaded;
+    }
+
+    /**
+     * Add an expansion and its cards to the inventory being loaded.  Expansions should
+     * be merged in the order they appear in the file so the result is the same no matter
+     * which order they finished loading in.
+     * 
+     * @param loaded expansion to add
+     */
+    private void merge(LoadedSet loaded)
+    {
+        expansions.add(loaded.set());
+        blockNames.add(loaded.set().block());
+        cards.addAll(loaded.cards());
+        faces.putAll(loaded.faces());
+        multiUUIDs.putAll(loaded.multiUUIDs());
+        facesNames.putAll(loaded.facesNames());
+        otherFaceIds.putAll(loaded.otherFaceIds());
+        errors.addAll(loaded.errors());
+    }
+
+    /**
+     * Start creating the cards of an expansion on another thread.  If too many expansions
+     * are already waiting, wait for the oldest one to finish and merge it first so the
+     * number of expansions held in memory at once stays bounded.
+     * 
+     * @param pending expansions that are being loaded, in the order they were read
+     * @param setProperties properties of the expansion to load
+     * @throws InterruptedException if the loader is interrupted while waiting
+     * @throws ExecutionException if an expansion couldn't be loaded
+     */
+    private void submit(Deque<Future<LoadedSet>> pending, JsonObject setProperties) throws InterruptedException, ExecutionException
+    {
+        pending.add(ForkJoinPool.commonPool().submit(() -> loadSet(setProperties)));
+        while (pending.size() > MAX_PENDING_SETS)
+            merge(pending.remove().get());
+    }
+
+    /**
+     * Import a list of all cards that exist in Magic: the Gathering from a JSON file downloaded from
+     * {@link "http://www.mtgjson.com"}.  Also collect the lists of types and expansions (and their blocks).
+     * The file is streamed one expansion at a time so that the whole JSON tree never needs to be held in
+     * memory, and progress is reported based on how much of the file has been read.  Each expansion's
+     * cards are created in parallel, but expansions are merged in file order and multi-faced cards are
+     * joined afterward, so the result is the same as if they had been loaded one at a time.
+     *
+     * @return A snapshot of the inventory that was loaded, or an empty value if loading was cancelled.
+     * @throws Exception if the inventory file couldn't be loaded
+     */
+    private Optional<InventorySnapshot> loadJson() throws Exception
+    {
+        // Read the inventory file, building each expansion's cards in parallel with reading the next ones
+        var pending = new ArrayDeque<Future<LoadedSet>>();
+        final long size = Math.max(file.length(), 1);
+        try (JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(new ProgressInputStream(new FileInputStream(file), (o, n) -> setProgress((int)Math.min(n*100/size, 100))), StandardCharsets.UTF_8))))
         {
-            publish("Parsing " + file.getName() + "...");
-
-            JsonObject root = new JsonParser().parse(reader).getAsJsonObject();
-            DatabaseVersion version = root.has("meta") ?
-                DatabaseVersion.parseVersion(root.get("meta").getAsJsonObject().get("version").getAsString()) :
-                new DatabaseVersion(0, 0, 0); // Anything less than 5.0.0 will do for pre-5.0.0 databases
-
-            var entries = (version.compareTo(VER_5_0_0) < 0 ? root : root.get("data").getAsJsonObject()).entrySet();
-            int numCards = 0;
-            for (var setNode : entries)
-                numCards += setNode.getValue().getAsJsonObject().get("cards").getAsJsonArray().size();
-
-            // We don't use String.intern() here because the String pool that is maintained must include extra data that adds several MB
-            // to the overall memory consumption of the inventory
-            var costs = new HashMap<String, ManaCost>();
-            var colorLists = new HashMap<String, List<ManaType>>();
-            var allSupertypes = new HashMap<String, String>();
-            var supertypeSets = new HashMap<String, LinkedHashSet<String>>();
-            var allTypes = new HashMap<String, String>();
-            var typeSets = new HashMap<String, LinkedHashSet<String>>();
-            var allSubtypes = new HashMap<String, String>();
-            var subtypeSets = new HashMap<String, LinkedHashSet<String>>();
-            var printedTypes = new HashMap<String, String>();
-            var texts = new HashMap<String, String>();
-            var flavors = new HashMap<String, String>();
-            var artists = new HashMap<String, String>();
-            var formats = new HashMap<>(FormatConstraints.FORMAT_NAMES.stream().collect(Collectors.toMap(Function.identity(), Function.identity())));
-            var numbers = new HashMap<String, String>();
-            var stats = new HashMap<String, CombatStat>();
-            var loyalties = new HashMap<String, Loyalty>();
-            var rulingDates = new HashMap<String, Date>();
-            var rulingContents = new HashMap<String, String>();
             publish("Reading cards from " + file.getName() + "...");
             setProgress(0);
-            for (var setNode : entries)
+            reader.beginObject();
+            while (reader.hasNext())
             {
                 if (isCancelled())
                 {
                     expansions.clear();
                     blockNames.clear();
                     cards.clear();
-                    return new Inventory();
+                    return Optional.empty();
                 }
 
-                // Create the new Expansion
-                JsonObject setProperties = setNode.getValue().getAsJsonObject();
-                JsonArray setCards = setProperties.get("cards").getAsJsonArray();
-                Expansion set = new Expansion(
-                    setProperties.get("name").getAsString(),
-                    Optional.ofNullable(setProperties.get("block")).map(JsonElement::getAsString).orElse(Expansion.NO_BLOCK),
-                    setProperties.get("code").getAsString(),
-                    setCards.size(),
-                    LocalDate.parse(setProperties.get("releaseDate").getAsString(), Expansion.DATE_FORMATTER)
-                );
-                expansions.add(set);
-                blockNames.add(set.block());
-                publish("Loading cards from " + set + "...");
-
-                for (JsonElement cardElement : setCards)
+                String key = reader.nextName();
+                if (key.equals("meta"))
+                    version = DatabaseVersion.parseVersion(new JsonParser().parse(reader).getAsJsonObject().get("version").getAsString());
+                else if (key.equals("data"))
                 {
-                    // Create the new card for the expansion
-                    JsonObject card = cardElement.getAsJsonObject();
-
-                    // Card's multiverseid and Scryfall id
-                    String scryfallid = (version.compareTo(VER_5_0_0) < 0 ? card.get("scryfallId") : card.get("identifiers").getAsJsonObject().get("scryfallId")).getAsString();
-                    int multiverseid = Optional.ofNullable(version.compareTo(VER_5_0_0) < 0 ? card.get("multiverseId") : card.get("identifiers").getAsJsonObject().get("multiverseId")).map(JsonElement::getAsInt).orElse(-1);
-
-                    // Card's name
-                    String name = card.get(card.has("faceName") ? "faceName" : "name").getAsString();
-
-                    // If the card is a token, skip it
-                    CardLayout layout;
-                    try
-                    {
-                        layout = CardLayout.valueOf(card.get("layout").getAsString().toUpperCase().replaceAll("[^A-Z]", "_"));
-                    }
-                    catch (IllegalArgumentException e)
+                    // Only 5.0.0+ databases contain "data," so if "meta" hasn't been seen yet, at least that's known
+                    if (version.compareTo(VER_5_0_0) < 0)
+                        version = VER_5_0_0;
+                    reader.beginObject();
+                    while (reader.hasNext())
                     {
-                        errors.add(name + " (" + set + "): " + e.getMessage());
-                        continue;
-                    }
-
-                    // Rulings
-                    var rulings = new TreeMap<Date, List<String>>();
-                    if (card.has("rulings"))
-                    {
-                        for (JsonElement l : card.get("rulings").getAsJsonArray())
+                        if (isCancelled())
                         {
-                            JsonObject o = l.getAsJsonObject();
-                            String ruling = rulingContents.computeIfAbsent(o.get("text").getAsString(), Function.identity());
-                            try
-                            {
-                                Date temp = format.parse(o.get("date").getAsString()); // Have to do this to catch the exception
-                                Date date = rulingDates.computeIfAbsent(o.get("date").getAsString(), (k) -> temp);
-                                if (!rulings.containsKey(date))
-                                    rulings.put(date, new ArrayList<>());
-                                rulings.get(date).add(ruling);
-                            }
-                            catch (ParseException x)
-                            {
-                                errors.add(name + " (" + set + "): " + x.getMessage());
-                            }
+                            expansions.clear();
+                            blockNames.clear();
+                            cards.clear();
+                            return Optional.empty();
                         }
+                        reader.nextName();
+                        submit(pending, readSet(reader));
                     }
-
-                    // Format legality
-                    var legality = new HashMap<String, Legality>();
-                    for (var entry : card.get("legalities").getAsJsonObject().entrySet())
-                        legality.put(formats.computeIfAbsent(entry.getKey(), Function.identity()), Legality.parseLegality(entry.getValue().getAsString()));
-
-                    // Formats the card can be commander in
-                    var commandFormats = !card.has("leadershipSkills") ? Collections.<String>emptyList() :
-                        card.get("leadershipSkills").getAsJsonObject().entrySet().stream()
-                            .filter((e) -> e.getValue().getAsBoolean())
-                            .map((e) -> formats.computeIfAbsent(e.getKey(), Function.identity()))
-                            .sorted()
-                            .collect(Collectors.toList());
-
-                    Card c = new SingleCard(
-                        layout,
-                        name,
-                        costs.computeIfAbsent(card.has("manaCost") ? card.get("manaCost").getAsString() : "", ManaCost::parseManaCost),
-                        colorLists.computeIfAbsent(card.get("colors").getAsJsonArray().toString(), (k) -> {
-                            var col = new ArrayList<ManaType>();
-                            for (JsonElement e : card.get("colors").getAsJsonArray())
-                                col.add(ManaType.parseManaType(e.getAsString()));
-                            return Collections.unmodifiableList(col);
-                        }),
-                        colorLists.computeIfAbsent(card.get("colorIdentity").getAsJsonArray().toString(), (k) -> {
-                            var col = new ArrayList<ManaType>();
-                            for (JsonElement e : card.get("colorIdentity").getAsJsonArray())
-                                col.add(ManaType.parseManaType(e.getAsString()));
-                            return Collections.unmodifiableList(col);
-                        }),
-                        supertypeSets.computeIfAbsent(card.get("supertypes").getAsJsonArray().toString(), (k) -> {
-                            var s = new LinkedHashSet<String>();
-                            for (JsonElement e : card.get("supertypes").getAsJsonArray())
-                                s.add(allSupertypes.computeIfAbsent(e.getAsString(), Function.identity()));
-                            return s;
-                        }),
-                        typeSets.computeIfAbsent(card.get("types").getAsJsonArray().toString(), (str) -> {
-                            var s = new LinkedHashSet<String>();
-                            for (JsonElement e : card.get("types").getAsJsonArray())
-                                s.add(allTypes.computeIfAbsent(e.getAsString(), Function.identity()));
-                            return s;
-                        }),
-                        subtypeSets.computeIfAbsent(card.get("subtypes").getAsJsonArray().toString(), (k) -> {
-                            var s = new LinkedHashSet<String>();
-                            for (JsonElement e : card.get("subtypes").getAsJsonArray())
-                                s.add(allSubtypes.computeIfAbsent(e.getAsString(), Function.identity()));
-                            return s;
-                        }),
-                        printedTypes.computeIfAbsent(card.has("originalType") ? card.get("originalType").getAsString() : "", Function.identity()),
-                        Rarity.parseRarity(card.get("rarity").getAsString()),
-                        set,
-                        texts.computeIfAbsent(card.has("text") ? card.get("text").getAsString() : "", Function.identity()),
-                        flavors.computeIfAbsent(card.has("flavorText") ? card.get("flavorText").getAsString() : "", Function.identity()),
-                        texts.computeIfAbsent(card.has("originalText") ? card.get("originalText").getAsString() : "", Function.identity()),
-                        artists.computeIfAbsent(card.has("artist") ? card.get("artist").getAsString() : "", Function.identity()),
-                        multiverseid,
-                        scryfallid,
-                        numbers.computeIfAbsent(card.get("number").getAsString(), Function.identity()),
-                        stats.computeIfAbsent(card.has("power") ? card.get("power").getAsString() : "", CombatStat::new),
-                        stats.computeIfAbsent(card.has("toughness") ? card.get("toughness").getAsString() : "", CombatStat::new),
-                        loyalties.computeIfAbsent(card.has("loyalty") ? card.get("loyalty").isJsonNull() ? "X" : card.get("loyalty").getAsString() : "", Loyalty::new),
-                        rulings,
-                        legality,
-                        commandFormats
-                    );
-
-                    // Collect unexpected card values
-                    if (c.artist().stream().anyMatch(String::isEmpty))
-                        errors.add(c.unifiedName() + " (" + c.expansion() + "): Missing artist!");
-
-                    // Add to map of faces if the card has multiple faces
-                    if (layout.isMultiFaced)
-                    {
-                        if (version.compareTo(VER_5_0_0) < 0)
-                        {
-                            var names = new ArrayList<String>();
-                            for (JsonElement e : card.get("names").getAsJsonArray())
-                                names.add(e.getAsString());
-                            faces.put(c, names);
-                        }
-                        else
-                        {
-                            multiUUIDs.put(card.get("uuid").getAsString(), c);
-                            facesNames.put(c, Arrays.asList(card.get("name").getAsString().split(Card.FACE_SEPARATOR)));
-                            otherFaceIds.put(c, new ArrayList<>());
-                            for (JsonElement id : card.get("otherFaceIds").getAsJsonArray())
-                                otherFaceIds.get(c).add(id.getAsString());
-                        }
-                    }
-
-                    cards.add(c);
-                    setProgress(cards.size()*100/numCards);
+                    reader.endObject();
                 }
+                else // Pre-5.0.0 databases list expansions at the top level
+                    submit(pending, readSet(reader));
             }
+            reader.endObject();
+            while (!pending.isEmpty())
+                merge(pending.remove().get());
+        }
+        finally
+        {
+            for (var task : pending)
+                task.cancel(true);
+        }
 
-            publish("Processing multi-faced cards...");
-            if (version.compareTo(VER_5_0_0) <= 0)
+        var cards = this.cards;
+        publish("Processing multi-faced cards...");
+        if (version.compareTo(VER_5_0_0) <= 0)
+        {
+            var facesList = new ArrayList<>(faces.keySet());
+            while (!facesList.isEmpty())
             {
-                var facesList = new ArrayList<>(faces.keySet());
-                while (!facesList.isEmpty())
+                Card face = facesList.remove(0);
+                var otherFaces = new ArrayList<Card>();
+                if (version.compareTo(VER_5_0_0) < 0 || face.layout() != CardLayout.MELD)
                 {
-                    Card face = facesList.remove(0);
-                    var otherFaces = new ArrayList<Card>();
-                    if (version.compareTo(VER_5_0_0) < 0 || face.layout() != CardLayout.MELD)
-                    {
-                        var faceNames = faces.get(face);
-                        for (Card c : facesList)
-                            if (faceNames.contains(c.unifiedName()) && c.expansion().equals(face.expansion()))
-                                otherFaces.add(c);
-                        facesList.removeAll(otherFaces);
-                        otherFaces.add(face);
-                        otherFaces.sort(Comparator.comparingInt((a) -> faceNames.indexOf(a.unifiedName())));
-                    }
-                    cards.removeAll(otherFaces);
-
-                    if (face.layout() == CardLayout.MELD)
-                        Collections.swap(otherFaces, 1, 2);
-                    cards.addAll(createMultiFacedCard(face.layout(), otherFaces));
+                    var faceNames = faces.get(face);
+                    for (Card c : facesList)
+                        if (faceNames.contains(c.unifiedName()) && c.expansion().equals(face.expansion()))
+                            otherFaces.add(c);
+                    facesList.removeAll(otherFaces);
+                    otherFaces.add(face);
+                    otherFaces.sort(Comparator.comparingInt((a) -> faceNames.indexOf(a.unifiedName())));
                 }
+                cards.removeAll(otherFaces);
+
+                if (face.layout() == CardLayout.MELD)
+                    Collections.swap(otherFaces, 1, 2);
+                cards.addAll(createMultiFacedCard(face.layout(), otherFaces));
             }
-            else
+        }
+        else
+        {
+            cards.removeAll(facesNames.keySet());
+            for (var e : facesNames.entrySet())
             {
-                cards.removeAll(facesNames.keySet());
-                for (var e : facesNames.entrySet())
-                {
-                    Card face = e.getKey();
-                    var cardFaces = new ArrayList<>(otherFaceIds.get(face).stream().map(multiUUIDs::get).collect(Collectors.toList()));
-                    cardFaces.add(face);
-                    cardFaces.sort(Comparator.comparingInt(c -> e.getValue().indexOf(c.unifiedName())));
+                Card face = e.getKey();
+                var cardFaces = new ArrayList<>(otherFaceIds.get(face).stream().map(multiUUIDs::get).collect(Collectors.toList()));
+                cardFaces.add(face);
+                cardFaces.sort(Comparator.comparingInt(c -> e.getValue().indexOf(c.unifiedName())));
 
-                    if (face.layout() != CardLayout.MELD || cardFaces.size() == 3)
-                        cards.addAll(createMultiFacedCard(face.layout(), cardFaces));
-                }
+                if (face.layout() != CardLayout.MELD || cardFaces.size() == 3)
+                    cards.addAll(createMultiFacedCard(face.layout(), cardFaces));
             }
+        }
+
+        publish("Removing duplicate entries...");
+        var unique = new HashMap<String, Card>();
+        for (Card c : cards)
+            if (!unique.containsKey(c.scryfallid().get(0)))
+                unique.put(c.scryfallid().get(0), c);
+        cards = new ArrayList<>(unique.values());
+
+        var missingFormats = formats.values().stream().filter((f) -> !FormatConstraints.FORMAT_NAMES.contains(f)).sorted().collect(Collectors.toList());
+        if (!missingFormats.isEmpty())
+            errors.add("Could not find definitions for the following formats: " + missingFormats.stream().collect(Collectors.joining(", ")));
+
+        // Sort the lists of expansion and block names and types alphabetically
+        return Optional.of(new InventorySnapshot(
+            cards,
+            expansions.stream().sorted().toArray(Expansion[]::new),
+            blockNames.stream().sorted().toArray(String[]::new),
+            allSupertypes.values().stream().sorted().toArray(String[]::new),
+            allTypes.values().stream().sorted().toArray(String[]::new),
+            allSubtypes.values().stream().sorted().toArray(String[]::new),
+            new ArrayList<>(errors)
+        ));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Load the inventory from its snapshot if there is an up-to-date one, and otherwise
+     * import it from the JSON file and save a snapshot for next time.
+     *
+     * @return The inventory of cards that can be added to a deck.
+     */
+    @Override
+    protected Inventory doInBackground() throws Exception
+    {
+        publish("Opening " + file.getName() + "...");
 
-            publish("Removing duplicate entries...");
-            var unique = new HashMap<String, Card>();
-            for (Card c : cards)
-                if (!unique.containsKey(c.scryfallid().get(0)))
-                    unique.put(c.scryfallid().get(0), c);
-            cards = new ArrayList<>(unique.values());
-
-            // Store the lists of expansion and block names and types and sort them alphabetically
-            Expansion.expansions = expansions.stream().sorted().toArray(Expansion[]::new);
-            Expansion.blocks = blockNames.stream().sorted().toArray(String[]::new);
-            SupertypeFilter.supertypeList = allSupertypes.values().stream().sorted().toArray(String[]::new);
-            CardTypeFilter.typeList = allTypes.values().stream().sorted().toArray(String[]::new);
-            SubtypeFilter.subtypeList = allSubtypes.values().stream().sorted().toArray(String[]::new);
-
-            var missingFormats = formats.values().stream().filter((f) -> !FormatConstraints.FORMAT_NAMES.contains(f)).sorted().collect(Collectors.toList());
-            if (!missingFormats.isEmpty())
-                errors.add("Could not find definitions for the following formats: " + missingFormats.stream().collect(Collectors.joining(", ")));
+        Path snapshotFile = InventorySnapshot.snapshotFile(file);
+        DatabaseVersion current = SettingsDialog.settings().inventory().version();
+        var snapshot = InventorySnapshot.load(snapshotFile, file, current);
+        if (snapshot.isPresent())
+        {
+            publish("Loaded cards from " + snapshotFile.getFileName() + ".");
+            errors.addAll(snapshot.get().errors());
         }
+        else
+        {
+            snapshot = loadJson();
+            if (snapshot.isEmpty())
+                return new Inventory();
+            publish("Saving " + snapshotFile.getFileName() + "...");
+            try
+            {
+                snapshot.get().save(snapshotFile, file, current);
+            }
+            catch (IOException e)
+            {
+                errors.add("Could not save " + snapshotFile.getFileName() + ", so cards will be loaded from " + file.getName() + " again next time: " + e.getMessage());
+            }
+        }
+
+        // Store the lists of expansion and block names and types
+        Expansion.expansions = snapshot.get().expansions();
+        Expansion.blocks = snapshot.get().blocks();
+        SupertypeFilter.supertypeList = snapshot.get().supertypes();
+        CardTypeFilter.typeList = snapshot.get().types();
+        SubtypeFilter.subtypeList = snapshot.get().subtypes();
 
-        Inventory inventory = new Inventory(cards);
+        Inventory inventory = new Inventory(snapshot.get().cards());
 
         if (Files.exists(Path.of(SettingsDialog.settings().inventory().tags())))
         {
@@ -0,0 +1,637 @@
+package editor.gui.inventory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import editor.database.attributes.CombatStat;
+import editor.database.attributes.Expansion;
+import editor.database.attributes.Legality;
+import editor.database.attributes.Loyalty;
+import editor.database.attributes.ManaCost;
+import editor.database.attributes.ManaType;
+import editor.database.attributes.Rarity;
+import editor.database.card.Card;
+import editor.database.card.CardLayout;
+import editor.database.card.FlipCard;
+import editor.database.card.MeldCard;
+import editor.database.card.ModalCard;
+import editor.database.card.MultiCard;
+import editor.database.card.SingleCard;
+import editor.database.card.SplitCard;
+import editor.database.card.TransformCard;
+import editor.database.version.DatabaseVersion;
+
+/**
+ * Binary snapshot of a fully-loaded inventory, so it doesn't have to be parsed from
+ * JSON and re-processed every time the program starts.  A snapshot is only valid for
+ * the inventory file and database version it was created from.
+ * <p>
+ * The snapshot contains tables of all of the distinct strings, mana costs, color lists,
+ * type sets, and other values used by cards followed by a fixed-width record for each
+ * card face that refers to entries in those tables by index.  Cards are stored as lists
+ * of indices of their faces.  Variable-length card data (rulings, legality, and command
+ * formats) is stored in a pool of integers that face records point into.
+ *
+ * @param cards cards in the inventory
+ * @param expansions all expansions, sorted
+ * @param blocks names of all blocks, sorted
+ * @param supertypes all card supertypes, sorted
+ * @param types all card types, sorted
+ * @param subtypes all card subtypes, sorted
+ * @param errors warnings that were generated while loading the inventory
+ *
+ * @author Alec Roelke
+ */
+public record InventorySnapshot(
+    List<Card> cards,
+    Expansion[] expansions,
+    String[] blocks,
+    String[] supertypes,
+    String[] types,
+    String[] subtypes,
+    List<String> errors
+) {
+    /** Magic number identifying a snapshot file ("MTGI"). */
+    private static final int MAGIC = 0x4D544749;
+    /** Version of the snapshot format; increase whenever it changes. */
+    private static final int FORMAT_VERSION = 1;
+    /** Number of integers in each card face record. */
+    private static final int FACE_RECORD_SIZE = 24;
+    /** Record type for cards that have a single face. */
+    private static final int SINGLE = -1;
+
+    /**
+     * Get the file a snapshot of an inventory file should be stored in.
+     *
+     * @param source inventory file
+     * @return The path to the snapshot of the inventory file.
+     */
+    public static Path snapshotFile(File source)
+    {
+        return source.toPath().resolveSibling(source.getName() + ".snapshot");
+    }
+
+    /**
+     * Load an inventory snapshot from disk, if there is one that is valid for the given
+     * inventory file and database version.
+     *
+     * @param snapshot file containing the snapshot
+     * @param source inventory file the snapshot should have been created from
+     * @param version version of the database the snapshot should contain
+     * @return The inventory contained by the snapshot, or an empty value if there is
+     * no snapshot or it is out of date or corrupt.
+     */
+    public static Optional<InventorySnapshot> load(Path snapshot, File source, DatabaseVersion version)
+    {
+        if (!Files.isRegularFile(snapshot) || !source.isFile())
+            return Optional.empty();
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ))
+        {
+            // Read into the heap rather than mapping the file, since a mapped file can't be
+            // replaced on some systems until the mapping is garbage collected
+            long size = channel.size();
+            if (size < Long.BYTES || size > Integer.MAX_VALUE)
+                return Optional.empty();
+            ByteBuffer buffer = ByteBuffer.allocate((int)size);
+            while (buffer.hasRemaining())
+                if (channel.read(buffer) < 0)
+                    return Optional.empty();
+            buffer.flip();
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, buffer.limit() - Long.BYTES));
+            if (crc.getValue() != buffer.getLong(buffer.limit() - Long.BYTES))
+                return Optional.empty();
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION)
+                return Optional.empty();
+            if (!readString(buffer).equals(version.toString()) || buffer.getLong() != source.lastModified() || buffer.getLong() != source.length())
+                return Optional.empty();
+            return Optional.of(new SnapshotReader(buffer).read());
+        }
+        catch (IOException | BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e)
+        {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Read a length-prefixed UTF-8 string from a buffer.
+     *
+     * @param buffer buffer to read from
+     * @return The string that was read.
+     */
+    private static String readString(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write a length-prefixed UTF-8 string to a stream.
+     *
+     * @param out stream to write to
+     * @param s string to write
+     * @throws IOException if the string couldn't be written
+     */
+    private static void writeString(DataOutputStream out, String s) throws IOException
+    {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Save this snapshot to disk.  It is written to a temporary file first and then
+     * moved into place so a partially-written snapshot is never read.
+     *
+     * @param snapshot file to save to
+     * @param source inventory file this snapshot was created from
+     * @param version version of the database this snapshot contains
+     * @throws IOException if the snapshot couldn't be written
+     */
+    public void save(Path snapshot, File source, DatabaseVersion version) throws IOException
+    {
+        Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        CheckedOutputStream checked = new CheckedOutputStream(new FileOutputStream(temp.toFile()), new CRC32());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(checked, 1 << 16)))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            writeString(out, version.toString());
+            out.writeLong(source.lastModified());
+            out.writeLong(source.length());
+            new SnapshotWriter().write(out);
+            out.flush();
+            out.writeLong(checked.getChecksum().getValue());
+        }
+        catch (IOException e)
+        {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Table of distinct values that assigns each one an index in the order it was
+     * first seen.
+     *
+     * @param <K> type used to determine whether two values are the same
+     * @param <V> type of value stored in the table
+     *
+     * @author Alec Roelke
+     */
+    private static class Table<K, V>
+    {
+        /** Indices of values that have been added. */
+        private final Map<K, Integer> indices;
+        /** Values in the order they were added. */
+        private final List<V> values;
+        /** Function converting values into keys for comparison. */
+        private final Function<V, K> key;
+
+        /**
+         * Create a new, empty table.
+         *
+         * @param k function converting values into keys for comparison
+         */
+        public Table(Function<V, K> k)
+        {
+            indices = new HashMap<>();
+            values = new ArrayList<>();
+            key = k;
+        }
+
+        /**
+         * Get the index of a value, adding it to the table if it isn't there already.
+         *
+         * @param value value to look up
+         * @return The index of the value.
+         */
+        public int index(V value)
+        {
+            return indices.computeIfAbsent(key.apply(value), (k) -> {
+                values.add(value);
+                return values.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * Converts a snapshot into tables and records and writes them out.
+     *
+     * @author Alec Roelke
+     */
+    private class SnapshotWriter
+    {
+        private final Table<String, String> strings = new Table<>(Function.identity());
+        private final Table<String, ManaCost> costs = new Table<>(ManaCost::toString);
+        private final Table<List<ManaType>, List<ManaType>> colorLists = new Table<>(Function.identity());
+        private final Table<List<String>, Set<String>> typeSets = new Table<>(ArrayList::new);
+        private final Table<String, CombatStat> stats = new Table<>(CombatStat::expression);
+        private final Table<String, Loyalty> loyalties = new Table<>(Loyalty::toString);
+        private final Table<Date, Date> dates = new Table<>(Function.identity());
+        private final Table<Expansion, Expansion> sets = new Table<>(Function.identity());
+        /** Integers for variable-length card data. */
+        private final List<Integer> pool = new ArrayList<>();
+        /** Card face records. */
+        private final List<int[]> faceRecords = new ArrayList<>();
+        /** Indices of faces that have already been recorded. */
+        private final Map<Card, Integer> faceIndices = new IdentityHashMap<>();
+
+        /**
+         * Record a card face and get its index.  Faces that are shared by multiple cards
+         * are only recorded once.
+         *
+         * @param face face to record
+         * @return The index of the face's record.
+         */
+        private int face(Card face)
+        {
+            Integer index = faceIndices.get(face);
+            if (index != null)
+                return index;
+
+            int rulings = pool.size();
+            pool.add(face.rulings().size());
+            for (var e : face.rulings().entrySet())
+            {
+                pool.add(dates.index(e.getKey()));
+                pool.add(e.getValue().size());
+                for (String ruling : e.getValue())
+                    pool.add(strings.index(ruling));
+            }
+            int legality = pool.size();
+            pool.add(face.legality().size());
+            for (var e : face.legality().entrySet())
+            {
+                pool.add(strings.index(e.getKey()));
+                pool.add(e.getValue().ordinal());
+            }
+            int command = pool.size();
+            pool.add(face.commandFormats().size());
+            for (String format : face.commandFormats())
+                pool.add(strings.index(format));
+
+            faceRecords.add(new int[] {
+                face.layout().ordinal(),
+                strings.index(face.name().get(0)),
+                costs.index(face.manaCost().get(0)),
+                colorLists.index(face.colors()),
+                colorLists.index(face.colorIdentity()),
+                typeSets.index(face.supertypes()),
+                typeSets.index(face.types()),
+                typeSets.index(face.subtypes()),
+                strings.index(face.printedTypes().get(0)),
+                face.rarity().ordinal(),
+                sets.index(face.expansion()),
+                strings.index(face.oracleText().get(0)),
+                strings.index(face.flavorText().get(0)),
+                strings.index(face.printedText().get(0)),
+                strings.index(face.artist().get(0)),
+                face.multiverseid().get(0),
+                strings.index(face.scryfallid().get(0)),
+                strings.index(face.number().get(0)),
+                stats.index(face.power().get(0)),
+                stats.index(face.toughness().get(0)),
+                loyalties.index(face.loyalty().get(0)),
+                rulings,
+                legality,
+                command
+            });
+            faceIndices.put(face, faceRecords.size() - 1);
+            return faceRecords.size() - 1;
+        }
+
+        /**
+         * Write a list of strings as a count followed by string table indices.
+         *
+         * @param out stream to write to
+         * @param values strings to write
+         * @throws IOException if the strings couldn't be written
+         */
+        private void writeStrings(DataOutputStream out, List<String> values) throws IOException
+        {
+            out.writeInt(values.size());
+            for (String s : values)
+                out.writeInt(strings.index(s));
+        }
+
+        /**
+         * Convert the snapshot into tables and records and write them.
+         *
+         * @param out stream to write to
+         * @throws IOException if the snapshot couldn't be written
+         */
+        public void write(DataOutputStream out) throws IOException
+        {
+            // Build the card records first so all of the tables are complete
+            var cardRecords = new ArrayList<int[]>(cards.size());
+            for (Card card : cards)
+            {
+                if (card instanceof MultiCard m)
+                {
+                    var cardFaces = new ArrayList<Card>(m.faces());
+                    if (m instanceof MeldCard meld)
+                        cardFaces.add(1, meld.other());
+                    int[] indices = cardFaces.stream().mapToInt(this::face).toArray();
+                    cardRecords.add(new int[] { card.layout().ordinal(), pool.size(), indices.length });
+                    for (int index : indices)
+                        pool.add(index);
+                }
+                else
+                    cardRecords.add(new int[] { SINGLE, face(card), 1 });
+            }
+            for (Expansion expansion : expansions)
+                sets.index(expansion);
+            var metadata = List.of(Arrays.asList(blocks), Arrays.asList(supertypes), Arrays.asList(types), Arrays.asList(subtypes), errors);
+            for (var list : metadata)
+                list.forEach(strings::index);
+            for (Expansion expansion : sets.values)
+            {
+                strings.index(expansion.name());
+                strings.index(expansion.block());
+                strings.index(expansion.code());
+            }
+            for (ManaCost cost : costs.values)
+                strings.index(cost.toString());
+            for (var set : typeSets.values)
+                set.forEach(strings::index);
+            for (CombatStat stat : stats.values)
+                strings.index(stat.expression());
+            for (Loyalty loyalty : loyalties.values)
+                strings.index(loyalty.toString());
+
+            out.writeInt(strings.values.size());
+            for (String s : strings.values)
+                writeString(out, s);
+
+            out.writeInt(costs.values.size());
+            for (ManaCost cost : costs.values)
+                out.writeInt(strings.index(cost.toString()));
+            out.writeInt(colorLists.values.size());
+            for (var colors : colorLists.values)
+            {
+                out.writeInt(colors.size());
+                for (ManaType color : colors)
+                    out.writeInt(color.ordinal());
+            }
+            out.writeInt(typeSets.values.size());
+            for (var set : typeSets.values)
+                writeStrings(out, new ArrayList<>(set));
+            out.writeInt(stats.values.size());
+            for (CombatStat stat : stats.values)
+                out.writeInt(strings.index(stat.expression()));
+            out.writeInt(loyalties.values.size());
+            for (Loyalty loyalty : loyalties.values)
+                out.writeInt(strings.index(loyalty.toString()));
+            out.writeInt(dates.values.size());
+            for (Date date : dates.values)
+                out.writeLong(date.getTime());
+            out.writeInt(sets.values.size());
+            for (Expansion expansion : sets.values)
+            {
+                out.writeInt(strings.index(expansion.name()));
+                out.writeInt(strings.index(expansion.block()));
+                out.writeInt(strings.index(expansion.code()));
+                out.writeInt(expansion.count());
+                out.writeLong(expansion.released().toEpochDay());
+            }
+
+            out.writeInt(expansions.length);
+            for (Expansion expansion : expansions)
+                out.writeInt(sets.index(expansion));
+            for (var list : metadata)
+                writeStrings(out, list);
+
+            out.writeInt(pool.size());
+            for (int i : pool)
+                out.writeInt(i);
+            out.writeInt(faceRecords.size());
+            for (int[] record : faceRecords)
+                for (int i : record)
+                    out.writeInt(i);
+            out.writeInt(cardRecords.size());
+            for (int[] record : cardRecords)
+                for (int i : record)
+                    out.writeInt(i);
+        }
+    }
+
+    /**
+     * Reads tables and records from a snapshot and converts them back into cards.
+     *
+     * @author Alec Roelke
+     */
+    private static class SnapshotReader
+    {
+        /** Buffer to read from. */
+        private final ByteBuffer buffer;
+        private String[] strings;
+        private ManaCost[] costs;
+        private List<?>[] colorLists;
+        private Set<?>[] typeSets;
+        private CombatStat[] stats;
+        private Loyalty[] loyalties;
+        private Date[] dates;
+        private Expansion[] sets;
+        private int[] pool;
+
+        /**
+         * Create a new snapshot reader.
+         *
+         * @param b buffer to read from, positioned after the snapshot header
+         */
+        public SnapshotReader(ByteBuffer b)
+        {
+            buffer = b;
+        }
+
+        /**
+         * Read a list of strings stored as a count followed by string table indices.
+         *
+         * @return The list of strings.
+         */
+        private List<String> readStrings()
+        {
+            int n = buffer.getInt();
+            var values = new ArrayList<String>(n);
+            for (int i = 0; i < n; i++)
+                values.add(strings[buffer.getInt()]);
+            return values;
+        }
+
+        /**
+         * Create a card face from its record.
+         *
+         * @param record record containing the card face's attributes
+         * @return The card face.
+         */
+        @SuppressWarnings("unchecked")
+        private Card face(int[] record)
+        {
+            var rulings = new TreeMap<Date, List<String>>();
+            int r = record[21];
+            for (int i = 0, n = pool[r++]; i < n; i++)
+            {
+                Date date = dates[pool[r++]];
+                var texts = new ArrayList<String>();
+                for (int j = 0, m = pool[r++]; j < m; j++)
+                    texts.add(strings[pool[r++]]);
+                rulings.put(date, texts);
+            }
+            var legality = new HashMap<String, Legality>();
+            int l = record[22];
+            for (int i = 0, n = pool[l++]; i < n; i++, l += 2)
+                legality.put(strings[pool[l]], Legality.values()[pool[l + 1]]);
+            var command = new ArrayList<String>();
+            int c = record[23];
+            for (int i = 0, n = pool[c++]; i < n; i++)
+                command.add(strings[pool[c++]]);
+
+            return new SingleCard(
+                CardLayout.values()[record[0]],
+                strings[record[1]],
+                costs[record[2]],
+                (List<ManaType>)colorLists[record[3]],
+                (List<ManaType>)colorLists[record[4]],
+                (Set<String>)typeSets[record[5]],
+                (Set<String>)typeSets[record[6]],
+                (Set<String>)typeSets[record[7]],
+                strings[record[8]],
+                Rarity.values()[record[9]],
+                sets[record[10]],
+                strings[record[11]],
+                strings[record[12]],
+                strings[record[13]],
+                strings[record[14]],
+                record[15],
+                strings[record[16]],
+                strings[record[17]],
+                stats[record[18]],
+                stats[record[19]],
+                loyalties[record[20]],
+                rulings,
+                legality,
+                command.isEmpty() ? Collections.emptyList() : command
+            );
+        }
+
+        /**
+         * Read the tables and records and convert them into cards.
+         *
+         * @return The inventory snapshot that was read.
+         */
+        public InventorySnapshot read()
+        {
+            strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++)
+                strings[i] = readString(buffer);
+
+            costs = new ManaCost[buffer.getInt()];
+            for (int i = 0; i < costs.length; i++)
+                costs[i] = ManaCost.parseManaCost(strings[buffer.getInt()]);
+            colorLists = new List<?>[buffer.getInt()];
+            for (int i = 0; i < colorLists.length; i++)
+            {
+                var colors = new ArrayList<ManaType>();
+                for (int j = 0, n = buffer.getInt(); j < n; j++)
+                    colors.add(ManaType.values()[buffer.getInt()]);
+                colorLists[i] = Collections.unmodifiableList(colors);
+            }
+            typeSets = new Set<?>[buffer.getInt()];
+            for (int i = 0; i < typeSets.length; i++)
+                typeSets[i] = new LinkedHashSet<>(readStrings());
+            stats = new CombatStat[buffer.getInt()];
+            for (int i = 0; i < stats.length; i++)
+                stats[i] = new CombatStat(strings[buffer.getInt()]);
+            loyalties = new Loyalty[buffer.getInt()];
+            for (int i = 0; i < loyalties.length; i++)
+                loyalties[i] = new Loyalty(strings[buffer.getInt()]);
+            dates = new Date[buffer.getInt()];
+            for (int i = 0; i < dates.length; i++)
+                dates[i] = new Date(buffer.getLong());
+            sets = new Expansion[buffer.getInt()];
+            for (int i = 0; i < sets.length; i++)
+                sets[i] = new Expansion(strings[buffer.getInt()], strings[buffer.getInt()], strings[buffer.getInt()], buffer.getInt(), LocalDate.ofEpochDay(buffer.getLong()));
+
+            Expansion[] expansions = new Expansion[buffer.getInt()];
+            for (int i = 0; i < expansions.length; i++)
+                expansions[i] = sets[buffer.getInt()];
+            String[] blocks = readStrings().toArray(String[]::new);
+            String[] supertypes = readStrings().toArray(String[]::new);
+            String[] types = readStrings().toArray(String[]::new);
+            String[] subtypes = readStrings().toArray(String[]::new);
+            List<String> errors = readStrings();
+
+            pool = new int[buffer.getInt()];
+            buffer.asIntBuffer().get(pool);
+            buffer.position(buffer.position() + pool.length*Integer.BYTES);
+
+            Card[] faces = new Card[buffer.getInt()];
+            int[] record = new int[FACE_RECORD_SIZE];
+            for (int i = 0; i < faces.length; i++)
+            {
+                buffer.asIntBuffer().get(record);
+                buffer.position(buffer.position() + FACE_RECORD_SIZE*Integer.BYTES);
+                faces[i] = face(record);
+            }
+
+            int n = buffer.getInt();
+            var cards = new ArrayList<Card>(n);
+            for (int i = 0; i < n; i++)
+            {
+                int layout = buffer.getInt();
+                int start = buffer.getInt();
+                int count = buffer.getInt();
+                if (layout == SINGLE)
+                    cards.add(faces[start]);
+                else
+                {
+                    var cardFaces = new ArrayList<Card>(count);
+                    for (int j = 0; j < count; j++)
+                        cardFaces.add(faces[pool[start + j]]);
+                    cards.add(switch (CardLayout.values()[layout]) {
+                        case SPLIT, AFTERMATH, ADVENTURE -> new SplitCard(cardFaces);
+                        case FLIP -> new FlipCard(cardFaces.get(0), cardFaces.get(1));
+                        case TRANSFORM -> new TransformCard(cardFaces.get(0), cardFaces.get(1));
+                        case MODAL_DFC -> new ModalCard(cardFaces.get(0), cardFaces.get(1));
+                        case MELD -> new MeldCard(cardFaces.get(0), cardFaces.get(1), cardFaces.get(2));
+                        default -> throw new IllegalArgumentException("unexpected multi-faced layout " + CardLayout.values()[layout]);
+                    });
+                }
+            }
+
+            return new InventorySnapshot(cards, expansions, blocks, supertypes, types, subtypes, errors);
+        }
+    }
+}
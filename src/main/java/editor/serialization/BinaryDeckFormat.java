@@ -0,0 +1,473 @@
+package editor.serialization;
+
+import java.awt.Color;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import editor.collection.deck.CategorySpec;
+import editor.collection.deck.Deck;
+import editor.database.card.Card;
+import editor.filter.Filter;
+import editor.gui.MainFrame;
+import editor.gui.editor.DeckSerializer;
+
+/**
+ * Compact binary format for saving decks, as an alternative to JSON.  A file starts
+ * with a magic number and format version, followed by a table of the Scryfall IDs of
+ * all of the cards it uses.  Deck entries and category white- and blacklists refer to
+ * cards by their index in that table.  Counts and indices are stored as variable-length
+ * integers, dates as days since the epoch, and category filters as an encoding of their
+ * JSON structure.  The file ends with a CRC32 checksum of everything before it.
+ *
+ * @author Alec Roelke
+ */
+public final class BinaryDeckFormat
+{
+    /**
+     * Extension used for binary deck files.
+     */
+    public static final String EXTENSION = "dkb";
+    /** Magic number identifying a binary deck file ("MTGD"). */
+    private static final int MAGIC = 0x4D544744;
+    /** Version of the binary deck format; increase whenever it changes. */
+    private static final int FORMAT_VERSION = 1;
+
+    /** Tag for a JSON object in an encoded filter. */
+    private static final int OBJECT = 0;
+    /** Tag for a JSON array in an encoded filter. */
+    private static final int ARRAY = 1;
+    /** Tag for a JSON string in an encoded filter. */
+    private static final int STRING = 2;
+    /** Tag for a JSON number in an encoded filter. */
+    private static final int NUMBER = 3;
+    /** Tag for a JSON boolean in an encoded filter. */
+    private static final int BOOLEAN = 4;
+    /** Tag for JSON null in an encoded filter. */
+    private static final int NULL = 5;
+
+    /**
+     * Check if a stream contains a binary deck file without consuming any of it.
+     *
+     * @param in stream to check, which must support {@link InputStream#mark(int)}
+     * @return <code>true</code> if the stream starts with the binary deck magic number,
+     * and <code>false</code> otherwise.
+     * @throws IOException if the stream can't be read
+     */
+    public static boolean detect(InputStream in) throws IOException
+    {
+        in.mark(Integer.BYTES);
+        byte[] magic = in.readNBytes(Integer.BYTES);
+        in.reset();
+        return magic.length == Integer.BYTES && ((magic[0] & 0xFF) << 24 | (magic[1] & 0xFF) << 16 | (magic[2] & 0xFF) << 8 | (magic[3] & 0xFF)) == MAGIC;
+    }
+
+    /**
+     * Write a deck, its sideboards, notes, and changelog in binary format.
+     *
+     * @param out stream to write to
+     * @param deck main deck
+     * @param sideboards extra lists, by name
+     * @param notes notes for the deck
+     * @param changelog changelog of the deck
+     * @throws IOException if the deck can't be written
+     */
+    public static void write(OutputStream out, Deck deck, Map<String, Deck> sideboards, String notes, String changelog) throws IOException
+    {
+        var cards = new LinkedHashMap<Card, Integer>();
+        var decks = new ArrayList<Deck>();
+        decks.add(deck);
+        decks.addAll(sideboards.values());
+        for (Deck d : decks)
+        {
+            for (Card card : d)
+                cards.putIfAbsent(card, cards.size());
+            for (CategorySpec spec : d.categories())
+            {
+                for (Card card : spec.getWhitelist())
+                    cards.putIfAbsent(card, cards.size());
+                for (Card card : spec.getBlacklist())
+                    cards.putIfAbsent(card, cards.size());
+            }
+        }
+
+        var checked = new CheckedOutputStream(out, new CRC32());
+        var data = new DataOutputStream(checked);
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        writeVarInt(data, cards.size());
+        for (Card card : cards.keySet())
+            writeString(data, card.scryfallid().get(0));
+        writeString(data, notes);
+        writeString(data, changelog);
+        writeDeck(data, deck, cards);
+        writeVarInt(data, sideboards.size());
+        for (var e : sideboards.entrySet())
+        {
+            writeString(data, e.getKey());
+            writeDeck(data, e.getValue(), cards);
+        }
+        data.flush();
+        data.writeLong(checked.getChecksum().getValue());
+        data.flush();
+    }
+
+    /**
+     * Read a deck, its sideboards, notes, and changelog from binary format.
+     *
+     * @param in stream to read from
+     * @return a {@link DeckSerializer} containing the deck that was read.
+     * @throws IOException if the deck can't be read or the file is corrupt
+     */
+    public static DeckSerializer read(InputStream in) throws IOException
+    {
+        var checked = new CheckedInputStream(in, new CRC32());
+        var data = new DataInputStream(checked);
+        if (data.readInt() != MAGIC)
+            throw new IOException("not a binary deck file");
+        int version = data.readInt();
+        if (version != FORMAT_VERSION)
+            throw new IOException("unsupported binary deck version " + version);
+
+        var cards = new Card[readVarInt(data)];
+        for (int i = 0; i < cards.length; i++)
+        {
+            String id = readString(data);
+            cards[i] = MainFrame.inventory().find(id);
+            if (cards[i] == null)
+                throw new IOException("no card with Scryfall ID " + id + " exists");
+        }
+        String notes = readString(data);
+        String changelog = readString(data);
+        Deck deck = readDeck(data, cards);
+        int n = readVarInt(data);
+        var sideboards = new LinkedHashMap<String, Deck>();
+        for (int i = 0; i < n; i++)
+        {
+            String name = readString(data);
+            sideboards.put(name, readDeck(data, cards));
+        }
+
+        long checksum = checked.getChecksum().getValue();
+        if (data.readLong() != checksum || data.read() >= 0)
+            throw new IOException("binary deck file is corrupt");
+        return new DeckSerializer(deck, sideboards, notes, changelog);
+    }
+
+    /**
+     * Write the entries and categories of a deck.
+     *
+     * @param out stream to write to
+     * @param deck deck to write
+     * @param cards indices of cards in the card table
+     * @throws IOException if the deck can't be written
+     */
+    private static void writeDeck(DataOutputStream out, Deck deck, Map<Card, Integer> cards) throws IOException
+    {
+        writeVarInt(out, deck.size());
+        for (Card card : deck)
+        {
+            writeVarInt(out, cards.get(card));
+            writeVarInt(out, deck.getEntry(card).count());
+            writeVarLong(out, zigzag(deck.getEntry(card).dateAdded().toEpochDay()));
+        }
+        writeVarInt(out, deck.categories().size());
+        for (CategorySpec spec : deck.categories())
+        {
+            writeString(out, spec.getName());
+            writeVarInt(out, deck.getCategoryRank(spec.getName()));
+            out.writeInt(spec.getColor().getRGB());
+            writeJson(out, spec.getFilter().toJsonObject());
+            writeVarInt(out, spec.getWhitelist().size());
+            for (Card card : spec.getWhitelist())
+                writeVarInt(out, cards.get(card));
+            writeVarInt(out, spec.getBlacklist().size());
+            for (Card card : spec.getBlacklist())
+                writeVarInt(out, cards.get(card));
+        }
+    }
+
+    /**
+     * Read the entries and categories of a deck.
+     *
+     * @param in stream to read from
+     * @param cards card table
+     * @return the deck that was read.
+     * @throws IOException if the deck can't be read
+     */
+    private static Deck readDeck(DataInputStream in, Card[] cards) throws IOException
+    {
+        Deck deck = new Deck();
+        int n = readVarInt(in);
+        for (int i = 0; i < n; i++)
+        {
+            Card card = card(cards, readVarInt(in));
+            int count = readVarInt(in);
+            deck.add(card, count, LocalDate.ofEpochDay(unzigzag(readVarLong(in))));
+        }
+        n = readVarInt(in);
+        var specs = new ArrayList<CategorySpec>(n);
+        var ranks = new ArrayList<Integer>(n);
+        for (int i = 0; i < n; i++)
+        {
+            CategorySpec spec = new CategorySpec();
+            spec.setName(readString(in));
+            ranks.add(readVarInt(in));
+            spec.setColor(new Color(in.readInt(), true));
+            spec.setFilter(MainFrame.SERIALIZER.fromJson(readJson(in), Filter.class));
+            int m = readVarInt(in);
+            for (int j = 0; j < m; j++)
+                spec.include(card(cards, readVarInt(in)));
+            m = readVarInt(in);
+            for (int j = 0; j < m; j++)
+                spec.exclude(card(cards, readVarInt(in)));
+            specs.add(spec);
+        }
+        for (int i = 0; i < specs.size(); i++)
+            deck.addCategory(specs.get(i), ranks.get(i));
+        return deck;
+    }
+
+    /**
+     * Look up a card in the card table.
+     *
+     * @param cards card table
+     * @param index index of the card
+     * @return the card at the index.
+     * @throws IOException if the index isn't in the table
+     */
+    private static Card card(Card[] cards, int index) throws IOException
+    {
+        if (index < 0 || index >= cards.length)
+            throw new IOException("card index " + index + " out of range");
+        return cards[index];
+    }
+
+    /**
+     * Write a JSON element, such as a serialized filter.
+     *
+     * @param out stream to write to
+     * @param element element to write
+     * @throws IOException if the element can't be written
+     */
+    private static void writeJson(DataOutputStream out, JsonElement element) throws IOException
+    {
+        if (element.isJsonObject())
+        {
+            out.writeByte(OBJECT);
+            var members = element.getAsJsonObject().entrySet();
+            writeVarInt(out, members.size());
+            for (var e : members)
+            {
+                writeString(out, e.getKey());
+                writeJson(out, e.getValue());
+            }
+        }
+        else if (element.isJsonArray())
+        {
+            out.writeByte(ARRAY);
+            writeVarInt(out, element.getAsJsonArray().size());
+            for (JsonElement e : element.getAsJsonArray())
+                writeJson(out, e);
+        }
+        else if (element.isJsonNull())
+            out.writeByte(NULL);
+        else if (element.getAsJsonPrimitive().isBoolean())
+        {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(element.getAsBoolean());
+        }
+        else if (element.getAsJsonPrimitive().isNumber())
+        {
+            out.writeByte(NUMBER);
+            writeString(out, element.getAsNumber().toString());
+        }
+        else
+        {
+            out.writeByte(STRING);
+            writeString(out, element.getAsString());
+        }
+    }
+
+    /**
+     * Read a JSON element.
+     *
+     * @param in stream to read from
+     * @return the element that was read.
+     * @throws IOException if the element can't be read
+     */
+    private static JsonElement readJson(DataInputStream in) throws IOException
+    {
+        int tag = in.readByte();
+        switch (tag)
+        {
+        case OBJECT -> {
+            JsonObject object = new JsonObject();
+            int n = readVarInt(in);
+            for (int i = 0; i < n; i++)
+            {
+                String key = readString(in);
+                object.add(key, readJson(in));
+            }
+            return object;
+        }
+        case ARRAY -> {
+            JsonArray array = new JsonArray();
+            int n = readVarInt(in);
+            for (int i = 0; i < n; i++)
+                array.add(readJson(in));
+            return array;
+        }
+        case STRING -> {
+            return new JsonPrimitive(readString(in));
+        }
+        case NUMBER -> {
+            try
+            {
+                return new JsonPrimitive(new BigDecimal(readString(in)));
+            }
+            catch (NumberFormatException e)
+            {
+                throw new IOException(e);
+            }
+        }
+        case BOOLEAN -> {
+            return new JsonPrimitive(in.readBoolean());
+        }
+        case NULL -> {
+            return JsonNull.INSTANCE;
+        }
+        default -> throw new IOException("unknown filter element tag " + tag);
+        }
+    }
+
+    /**
+     * Write a string as its length in bytes followed by its UTF-8 encoding.
+     *
+     * @param out stream to write to
+     * @param s string to write
+     * @throws IOException if the string can't be written
+     */
+    private static void writeString(DataOutputStream out, String s) throws IOException
+    {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Read a string written by {@link #writeString(DataOutputStream, String)}.
+     *
+     * @param in stream to read from
+     * @return the string that was read.
+     * @throws IOException if the string can't be read
+     */
+    private static String readString(DataInputStream in) throws IOException
+    {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write a non-negative integer using seven bits per byte, with the high bit of
+     * each byte set if there are more to follow.
+     *
+     * @param out stream to write to
+     * @param value value to write
+     * @throws IOException if the value can't be written
+     */
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException
+    {
+        writeVarLong(out, value);
+    }
+
+    /**
+     * Read a non-negative integer written by {@link #writeVarInt(DataOutputStream, int)}.
+     *
+     * @param in stream to read from
+     * @return the value that was read.
+     * @throws IOException if the value can't be read or is out of range
+     */
+    private static int readVarInt(DataInputStream in) throws IOException
+    {
+        long value = readVarLong(in);
+        if (value < 0 || value > Integer.MAX_VALUE)
+            throw new IOException("value " + value + " out of range");
+        return (int)value;
+    }
+
+    /**
+     * Write a non-negative long integer using seven bits per byte.
+     *
+     * @param out stream to write to
+     * @param value value to write
+     * @throws IOException if the value can't be written
+     * @see #writeVarInt(DataOutputStream, int)
+     */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            out.writeByte((int)(value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int)value);
+    }
+
+    /**
+     * Read a long integer written by {@link #writeVarLong(DataOutputStream, long)}.
+     *
+     * @param in stream to read from
+     * @return the value that was read.
+     * @throws IOException if the value can't be read
+     */
+    private static long readVarLong(DataInputStream in) throws IOException
+    {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7)
+        {
+            int b = in.readUnsignedByte();
+            value |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("variable-length integer is too long");
+    }
+
+    /**
+     * @param value value to encode
+     * @return the value with its sign moved to the lowest bit, so values close to zero
+     * are small whether they are positive or negative.
+     */
+    private static long zigzag(long value)
+    {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * @param value value to decode
+     * @return the value that was encoded by {@link #zigzag(long)}.
+     */
+    private static long unzigzag(long value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
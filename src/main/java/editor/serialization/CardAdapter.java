@@ -29,8 +29,9 @@ public class CardAdapter implements JsonSerializer<Card>, JsonDeserializer<Card>
         if (json.getAsJsonObject().has("scryfallid"))
             return MainFrame.inventory().find(json.getAsJsonObject().get("scryfallid").getAsString());
         int multiverseid = json.getAsJsonObject().get("multiverseid").getAsInt();
-        if (MainFrame.inventory().contains(multiverseid))
-            return MainFrame.inventory().find(multiverseid);
+        Card card = MainFrame.inventory().find(multiverseid);
+        if (card != null)
+            return card;
         else
             throw new JsonParseException("no card with multiverseid " + multiverseid + " exists");
     }
@@ -1,54 +1,104 @@
 package editor.serialization;
 
 import java.awt.Color;
-import java.lang.reflect.Type;
+import java.io.IOException;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 import editor.collection.deck.CategorySpec;
 import editor.database.card.Card;
 import editor.filter.Filter;
+import editor.gui.MainFrame;
 
 /**
- * A JSON serializer and deserializer for {@link CategorySpec}.
- * 
+ * A streaming JSON serializer and deserializer for {@link CategorySpec}.
+ *
  * @author Alec Roelke
  */
-public class CategoryAdapter implements JsonSerializer<CategorySpec>, JsonDeserializer<CategorySpec>
+public class CategoryAdapter extends TypeAdapter<CategorySpec>
 {
     @Override
-    public JsonElement serialize(CategorySpec src, Type typeOfSrc, JsonSerializationContext context)
+    public void write(JsonWriter out, CategorySpec value) throws IOException
     {
-        JsonObject category = new JsonObject();
-        category.addProperty("name", src.getName());
-        category.add("filter", context.serialize(src.getFilter()));
-        category.add("whitelist", context.serialize(src.getWhitelist()));
-        category.add("blacklist", context.serialize(src.getBlacklist()));
-        category.add("color", context.serialize(src.getColor()));
+        out.beginObject();
+        writeFields(out, value);
+        out.endObject();
+    }
 
-        return category;
+    /**
+     * Write the specification of a category as fields of the object currently being
+     * written, so other fields can be added to it.
+     *
+     * @param out writer to write to
+     * @param value category to write
+     * @throws IOException if the category can't be written
+     */
+    public void writeFields(JsonWriter out, CategorySpec value) throws IOException
+    {
+        var cards = MainFrame.SERIALIZER.getAdapter(Card.class);
+        out.name("name").value(value.getName());
+        out.name("filter");
+        MainFrame.SERIALIZER.getAdapter(Filter.class).write(out, value.getFilter());
+        out.name("whitelist").beginArray();
+        for (Card card : value.getWhitelist())
+            cards.write(out, card);
+        out.endArray();
+        out.name("blacklist").beginArray();
+        for (Card card : value.getBlacklist())
+            cards.write(out, card);
+        out.endArray();
+        out.name("color");
+        MainFrame.SERIALIZER.getAdapter(Color.class).write(out, value.getColor());
     }
 
     @Override
-    public CategorySpec deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException
+    public CategorySpec read(JsonReader in) throws IOException
     {
-        JsonObject obj = json.getAsJsonObject();
-
         CategorySpec category = new CategorySpec();
-        category.setName(obj.get("name").getAsString());
-        category.setFilter(context.deserialize(obj.get("filter"), Filter.class));
-        for (JsonElement element : obj.get("whitelist").getAsJsonArray())
-            category.include(context.deserialize(element, Card.class));
-        for (JsonElement element : obj.get("blacklist").getAsJsonArray())
-            category.exclude(context.deserialize(element, Card.class));
-        category.setColor(context.deserialize(obj.get("color"), Color.class));
-
+        in.beginObject();
+        while (in.hasNext())
+            if (!readField(in, in.nextName(), category))
+                in.skipValue();
+        in.endObject();
         return category;
     }
-}
\ No newline at end of file
+
+    /**
+     * Read a field of a category object into a category specification.  If the field
+     * doesn't belong to a category, nothing is read.
+     *
+     * @param in reader to read from, positioned at the field's value
+     * @param name name of the field
+     * @param category category specification to read into
+     * @return <code>true</code> if the field was read, and <code>false</code> otherwise.
+     * @throws IOException if the field can't be read
+     */
+    public boolean readField(JsonReader in, String name, CategorySpec category) throws IOException
+    {
+        var cards = MainFrame.SERIALIZER.getAdapter(Card.class);
+        switch (name)
+        {
+        case "name" -> category.setName(in.nextString());
+        case "filter" -> category.setFilter(MainFrame.SERIALIZER.getAdapter(Filter.class).read(in));
+        case "whitelist" -> {
+            in.beginArray();
+            while (in.hasNext())
+                category.include(cards.read(in));
+            in.endArray();
+        }
+        case "blacklist" -> {
+            in.beginArray();
+            while (in.hasNext())
+                category.exclude(cards.read(in));
+            in.endArray();
+        }
+        case "color" -> category.setColor(MainFrame.SERIALIZER.getAdapter(Color.class).read(in));
+        default -> {
+            return false;
+        }
+        }
+        return true;
+    }
+}
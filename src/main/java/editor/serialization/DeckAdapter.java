@@ -1,69 +1,155 @@
 package editor.serialization;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 import editor.collection.deck.CategorySpec;
 import editor.collection.deck.Deck;
 import editor.database.card.Card;
+import editor.gui.MainFrame;
 
-public class DeckAdapter implements JsonSerializer<Deck>, JsonDeserializer<Deck>
+/**
+ * A streaming JSON serializer and deserializer for {@link Deck}.  Cards and categories
+ * are written and read one at a time rather than building the entire deck as a tree
+ * first.
+ *
+ * @author Alec Roelke
+ */
+public class DeckAdapter extends TypeAdapter<Deck>
 {
     private final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
+    /**
+     * Serializer used for the categories of decks.
+     */
+    private final CategoryAdapter categories = new CategoryAdapter();
+
     @Override
-    public JsonElement serialize(Deck src, Type typeOfSrc, JsonSerializationContext context)
+    public void write(JsonWriter out, Deck value) throws IOException
     {
-        JsonObject deck = new JsonObject();
+        out.beginObject();
+        writeFields(out, value);
+        out.endObject();
+    }
 
-        JsonArray cards = new JsonArray();
-        for (Card card : src)
+    /**
+     * Write the cards and categories of a deck as fields of the object currently being
+     * written, so other fields can be added to it.
+     *
+     * @param out writer to write to
+     * @param value deck to write
+     * @throws IOException if the deck can't be written
+     */
+    public void writeFields(JsonWriter out, Deck value) throws IOException
+    {
+        var cards = MainFrame.SERIALIZER.getAdapter(Card.class);
+        out.name("cards").beginArray();
+        for (Card card : value)
         {
-            JsonObject entry = new JsonObject();
-            entry.add("card", context.serialize(card));
-            entry.addProperty("count", src.getEntry(card).count());
-            entry.addProperty("date", src.getEntry(card).dateAdded().format(FORMATTER));
-            cards.add(entry);
+            out.beginObject();
+            out.name("card");
+            cards.write(out, card);
+            out.name("count").value(value.getEntry(card).count());
+            out.name("date").value(value.getEntry(card).dateAdded().format(FORMATTER));
+            out.endObject();
         }
-        deck.add("cards", cards);
+        out.endArray();
 
-        JsonArray categories = new JsonArray();
-        for (CategorySpec spec : src.categories())
+        out.name("categories").beginArray();
+        for (CategorySpec spec : value.categories())
         {
-            JsonObject category = context.serialize(spec).getAsJsonObject();
-            category.addProperty("rank", src.getCategoryRank(spec.getName()));
-            categories.add(category);
+            out.beginObject();
+            categories.writeFields(out, spec);
+            out.name("rank").value(value.getCategoryRank(spec.getName()));
+            out.endObject();
         }
-        deck.add("categories", categories);
-        return deck;
+        out.endArray();
     }
 
     @Override
-    public Deck deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException
+    public Deck read(JsonReader in) throws IOException
+    {
+        Deck deck = new Deck();
+        in.beginObject();
+        while (in.hasNext())
+            if (!readField(in, in.nextName(), deck))
+                in.skipValue();
+        in.endObject();
+        return deck;
+    }
+
+    /**
+     * Read a field of a deck object into a deck.  If the field doesn't belong to a deck,
+     * nothing is read.
+     *
+     * @param in reader to read from, positioned at the field's value
+     * @param name name of the field
+     * @param deck deck to read into
+     * @return <code>true</code> if the field was read, and <code>false</code> otherwise.
+     * @throws IOException if the field can't be read
+     */
+    public boolean readField(JsonReader in, String name, Deck deck) throws IOException
     {
-        Deck d = new Deck();
-        JsonObject obj = json.getAsJsonObject();
-        for (JsonElement element : obj.get("cards").getAsJsonArray())
+        if (name.equals("cards"))
+        {
+            var cards = MainFrame.SERIALIZER.getAdapter(Card.class);
+            in.beginArray();
+            while (in.hasNext())
+            {
+                Card card = null;
+                int count = 0;
+                LocalDate date = null;
+                in.beginObject();
+                while (in.hasNext())
+                {
+                    switch (in.nextName())
+                    {
+                    case "card" -> card = cards.read(in);
+                    case "count" -> count = in.nextInt();
+                    case "date" -> date = LocalDate.parse(in.nextString(), FORMATTER);
+                    default -> in.skipValue();
+                    }
+                }
+                in.endObject();
+                deck.add(card, count, date);
+            }
+            in.endArray();
+            return true;
+        }
+        else if (name.equals("categories"))
         {
-            JsonObject entry = element.getAsJsonObject();
-            d.add(
-                context.deserialize(entry.get("card"), Card.class),
-                entry.get("count").getAsInt(),
-                LocalDate.parse(entry.get("date").getAsString(), FORMATTER)
-            );
+            var specs = new ArrayList<CategorySpec>();
+            var ranks = new ArrayList<Integer>();
+            in.beginArray();
+            while (in.hasNext())
+            {
+                CategorySpec spec = new CategorySpec();
+                int rank = -1;
+                in.beginObject();
+                while (in.hasNext())
+                {
+                    String field = in.nextName();
+                    if (field.equals("rank"))
+                        rank = in.nextInt();
+                    else if (!categories.readField(in, field, spec))
+                        in.skipValue();
+                }
+                in.endObject();
+                specs.add(spec);
+                ranks.add(rank);
+            }
+            in.endArray();
+            for (int i = 0; i < specs.size(); i++)
+                deck.addCategory(specs.get(i), ranks.get(i));
+            return true;
         }
-        for (JsonElement element : obj.get("categories").getAsJsonArray())
-            d.addCategory(context.deserialize(element, CategorySpec.class), element.getAsJsonObject().get("rank").getAsInt());
-        return d;
+        else
+            return false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,130 @@
+package editor.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * This class reads lines of text from an {@link InputStream} in large blocks rather
+ * than a byte at a time.  Lines are separated by '\n', carriage returns are dropped
+ * wherever they appear, and the text after the last '\n' is always returned as the
+ * last line, even if it's empty.  Each byte is converted to a character directly
+ * (as in ISO-8859-1).
+ *
+ * @author Alec Roelke
+ */
+public class LineReader implements Closeable
+{
+    /**
+     * Default number of bytes to read from the stream at a time.
+     */
+    public static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Stream to read lines from.
+     */
+    private final InputStream in;
+    /**
+     * Bytes read from the stream that haven't been converted to lines yet.
+     */
+    private final byte[] buffer;
+    /**
+     * Index of the next byte in the buffer to convert.
+     */
+    private int position;
+    /**
+     * Number of bytes in the buffer.
+     */
+    private int limit;
+    /**
+     * Total number of bytes that have been converted to lines.
+     */
+    private long bytesRead;
+    /**
+     * Whether or not the last line has been read.
+     */
+    private boolean done;
+    /**
+     * Line being read.
+     */
+    private final StringBuilder line;
+
+    /**
+     * Create a new LineReader reading from a stream.
+     *
+     * @param i stream to read from
+     */
+    public LineReader(InputStream i)
+    {
+        this(i, BUFFER_SIZE);
+    }
+
+    /**
+     * Create a new LineReader reading from a stream a given number of bytes at a time.
+     *
+     * @param i stream to read from
+     * @param size number of bytes to read at a time
+     */
+    public LineReader(InputStream i, int size)
+    {
+        in = i;
+        buffer = new byte[size];
+        position = 0;
+        limit = 0;
+        bytesRead = 0;
+        done = false;
+        line = new StringBuilder(128);
+    }
+
+    /**
+     * Read the next line from the stream.
+     *
+     * @return the next line, without its line separator, or <code>null</code> if the
+     * last line has already been read.
+     * @throws IOException if the stream can't be read
+     */
+    public String readLine() throws IOException
+    {
+        if (done)
+            return null;
+
+        line.setLength(0);
+        while (true)
+        {
+            if (position == limit)
+            {
+                position = 0;
+                limit = in.read(buffer, 0, buffer.length);
+                if (limit < 0)
+                {
+                    limit = 0;
+                    done = true;
+                    return line.toString();
+                }
+            }
+            while (position < limit)
+            {
+                char c = (char)(buffer[position++] & 0xFF);
+                bytesRead++;
+                if (c == '\n')
+                    return line.toString();
+                else if (c != '\r')
+                    line.append(c);
+            }
+        }
+    }
+
+    /**
+     * @return the number of bytes that have been converted into lines so far.
+     */
+    public long bytesRead()
+    {
+        return bytesRead;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        in.close();
+    }
+}
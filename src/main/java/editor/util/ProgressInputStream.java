@@ -9,7 +9,9 @@ import java.util.function.BiConsumer;
 
 /**
  * This class represents an input stream that reports how many bytes it has
- * read.
+ * read.  To avoid flooding listeners with events, it can be told to only report
+ * after a minimum number of bytes have been read since the last report; the total
+ * is always reported when the end of the stream is reached or it is closed.
  *
  * @author Alec Roelke
  */
@@ -24,18 +26,41 @@ public class ProgressInputStream extends FilterInputStream
      * Number of bytes that have been read.
      */
     private long totalRead;
+    /**
+     * Number of bytes read when progress was last reported.
+     */
+    private long reported;
+    /**
+     * Minimum number of bytes to read between reports.
+     */
+    private final long granularity;
 
     /**
      * Create a ProgressInputStream tracking the given #InputStream and reporting
-     * its progress.
+     * its progress whenever bytes are read.
      *
      * @param in stream to track
      */
     public ProgressInputStream(InputStream in)
+    {
+        this(in, 1);
+    }
+
+    /**
+     * Create a ProgressInputStream tracking the given #InputStream and reporting
+     * its progress after at least a given number of bytes have been read since
+     * the last report.
+     *
+     * @param in stream to track
+     * @param g minimum number of bytes to read between reports
+     */
+    public ProgressInputStream(InputStream in, long g)
     {
         super(in);
         propertySupport = new PropertyChangeSupport(this);
         totalRead = 0;
+        reported = 0;
+        granularity = Math.max(g, 1);
     }
 
     /**
@@ -49,7 +74,23 @@ public class ProgressInputStream extends FilterInputStream
      */
     public ProgressInputStream(InputStream in, BiConsumer<Long, Long> listener)
     {
-        this(in);
+        this(in, 1, listener);
+    }
+
+    /**
+     * Create a ProgressInputStream tracking the given #InputStream and reporting
+     * its progress using the given function after at least a given number of bytes
+     * have been read since the last report.
+     * 
+     * @param in stream to track
+     * @param g minimum number of bytes to read between reports
+     * @param listener how to report progress reading data; the first argument
+     * is the amount of data read at the last report and the second argument is
+     * the new amount
+     */
+    public ProgressInputStream(InputStream in, long g, BiConsumer<Long, Long> listener)
+    {
+        this(in, g);
         addPropertyChangeListener((e) -> {
             if (e.getPropertyName().equals("bytesRead"))
                 listener.accept((Long)e.getOldValue(), (Long)e.getNewValue());
@@ -93,7 +134,7 @@ public class ProgressInputStream extends FilterInputStream
     public int read() throws IOException
     {
         int r = super.read();
-        update(1);
+        update(r < 0 ? -1 : 1);
         return r;
     }
 
@@ -105,6 +146,13 @@ public class ProgressInputStream extends FilterInputStream
         return r;
     }
 
+    @Override
+    public void close() throws IOException
+    {
+        report();
+        super.close();
+    }
+
     @Override
     public void reset()
     {
@@ -112,16 +160,30 @@ public class ProgressInputStream extends FilterInputStream
     }
 
     /**
-     * If any bytes have been read, report the new total.
+     * Add bytes that were read to the total, and report it if enough have been
+     * read since the last report or the end of the stream was reached.
      *
-     * @param read bytes that were read
+     * @param read bytes that were read, or a negative number if the end of the
+     * stream was reached
      */
     private void update(int read)
     {
         if (read > 0)
-        {
-            long old = totalRead;
             totalRead += read;
+        if (read < 0 || totalRead - reported >= granularity)
+            report();
+    }
+
+    /**
+     * Report the number of bytes that have been read if it has changed since the
+     * last report.
+     */
+    private void report()
+    {
+        if (totalRead > reported)
+        {
+            long old = reported;
+            reported = totalRead;
             propertySupport.firePropertyChange("bytesRead", old, totalRead);
         }
     }